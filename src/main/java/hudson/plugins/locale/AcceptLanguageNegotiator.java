@@ -0,0 +1,131 @@
+package hudson.plugins.locale;
+
+import static hudson.plugins.locale.PluginImpl.ALLOWED_LOCALES;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Picks the best of {@link PluginImpl#ALLOWED_LOCALES} for an {@code Accept-Language} header,
+ * honoring q-values, so that the rest of the request only ever asks for a language Jenkins is translated to.
+ * <p>
+ * Browsers send few distinct headers, so results are kept in a {@link BoundedCache} keyed by the raw header value.
+ * Headers sent only once, by a client or many, are evicted before those browsers keep sending.
+ */
+@Extension
+public final class AcceptLanguageNegotiator {
+
+    /**
+     * Longer headers are negotiated but not cached, to keep the memory used by the cache bounded.
+     */
+    private static final int MAX_CACHED_HEADER_LENGTH = 256;
+
+    /**
+     * Lower case language tags, with and without region or script, mapped to the allowed locale they stand for.
+     */
+    private static final Map<String, Locale> MATCHES = buildMatches();
+
+    private final BoundedCache<String, Optional<Locale>> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public AcceptLanguageNegotiator() {
+        this(512);
+    }
+
+    AcceptLanguageNegotiator(int maxSize) {
+        this.cache = new BoundedCache<>(maxSize);
+    }
+
+    static AcceptLanguageNegotiator get() {
+        return ExtensionList.lookupSingleton(AcceptLanguageNegotiator.class);
+    }
+
+    /**
+     * Negotiates the locale of a request.
+     *
+     * @param header the {@code Accept-Language} header of the request
+     * @return the allowed locale the browser prefers, or {@code null} if it accepts none of them
+     */
+    @CheckForNull
+    Locale negotiate(@CheckForNull String header) {
+        if (header == null || header.isEmpty()) {
+            return null;
+        }
+        Optional<Locale> cached = cache.get(header);
+        if (cached != null) {
+            hits.increment();
+            return cached.orElse(null);
+        }
+        misses.increment();
+        Locale locale = match(header);
+        if (header.length() <= MAX_CACHED_HEADER_LENGTH) {
+            cache.put(header, Optional.ofNullable(locale));
+        }
+        return locale;
+    }
+
+    long getHitCount() {
+        return hits.sum();
+    }
+
+    long getMissCount() {
+        return misses.sum();
+    }
+
+    @CheckForNull
+    static Locale match(String header) {
+        List<Locale.LanguageRange> ranges;
+        try {
+            // sorted by descending weight, stable for equal weights
+            ranges = Locale.LanguageRange.parse(header);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        for (Locale.LanguageRange range : ranges) {
+            if (range.getWeight() <= 0) {
+                continue;
+            }
+            String tag = range.getRange();
+            while (true) {
+                Locale locale = MATCHES.get(tag);
+                if (locale != null) {
+                    return locale;
+                }
+                int dash = tag.lastIndexOf('-');
+                if (dash < 0) {
+                    break;
+                }
+                tag = tag.substring(0, dash);
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, Locale> buildMatches() {
+        Map<String, Locale> matches = new HashMap<>();
+        // exact tags first, e.g. "pt-br"
+        for (String code : ALLOWED_LOCALES) {
+            Locale locale = LocaleRegistry.parse(code);
+            matches.put(locale.toLanguageTag().toLowerCase(Locale.ROOT), locale);
+        }
+        // then bare languages for locales only allowed with a region, e.g. "pt" and "nb", picking the first code
+        ALLOWED_LOCALES.stream().sorted().forEach(code -> {
+            Locale locale = LocaleRegistry.parse(code);
+            matches.putIfAbsent(locale.getLanguage(), locale);
+        });
+        // scripts and legacy tags browsers still send
+        matches.put("zh-hans", LocaleRegistry.parse("zh_CN"));
+        matches.put("zh-hant", LocaleRegistry.parse("zh_TW"));
+        matches.put("zh-hk", LocaleRegistry.parse("zh_TW"));
+        matches.put("no", LocaleRegistry.parse("nb_NO"));
+        return Map.copyOf(matches);
+    }
+}
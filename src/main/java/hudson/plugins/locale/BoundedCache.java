@@ -0,0 +1,176 @@
+package hudson.plugins.locale;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Concurrent cache holding about {@code maxSize} entries, evicting those not used recently.
+ * <p>
+ * Lookups only read a {@link ConcurrentHashMap} and mark the entry as used. Entries are queued in insertion order,
+ * and once the cache is full the oldest one is evicted, unless it was used since it was last looked at, in which
+ * case it goes back to the end of the queue (the CLOCK approximation of LRU). Entries that were only added once,
+ * like many distinct keys sent by a single client, are thus evicted before those in use. Only one thread evicts
+ * at a time, the others do not wait for it, so the cache can briefly hold a few more entries than its bound.
+ * <p>
+ * Neither keys nor values can be {@code null}.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+final class BoundedCache<K, V> {
+
+    private final int maxSize;
+    private final ConcurrentMap<K, Node<K, V>> map = new ConcurrentHashMap<>();
+    /**
+     * The entries in eviction order. Removed and replaced entries stay until the next eviction skips them.
+     */
+    private final Queue<Node<K, V>> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ReentrantLock evicting = new ReentrantLock();
+
+    /**
+     * @param maxSize the number of entries to keep, at least one
+     */
+    BoundedCache(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * @param key the key
+     * @return the cached value, or {@code null} if there is none
+     */
+    @CheckForNull
+    V get(@NonNull K key) {
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (!node.used) {
+            node.used = true;
+        }
+        return node.value;
+    }
+
+    /**
+     * Returns the cached value, computing and caching it on a miss. Concurrent misses of the same key may compute
+     * it more than once, but all of them return the value that was cached.
+     *
+     * @param key the key
+     * @param loader computes the value of the key, outside of any lock
+     * @return the value of the key
+     */
+    @NonNull
+    V computeIfAbsent(@NonNull K key, @NonNull Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        Node<K, V> node = new Node<>(key, loader.apply(key));
+        Node<K, V> existing = map.putIfAbsent(key, node);
+        if (existing != null) {
+            return existing.value;
+        }
+        added(node);
+        return node.value;
+    }
+
+    /**
+     * Caches a value, replacing any value of the same key.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    void put(@NonNull K key, @NonNull V value) {
+        Node<K, V> node = new Node<>(key, value);
+        map.put(key, node);
+        added(node);
+    }
+
+    /**
+     * @param key the key to forget
+     */
+    void remove(@NonNull K key) {
+        map.remove(key);
+    }
+
+    /**
+     * Forgets all entries.
+     */
+    void clear() {
+        map.clear();
+    }
+
+    /**
+     * @param action called with each cached value
+     */
+    void forEachValue(@NonNull Consumer<? super V> action) {
+        map.values().forEach(node -> action.accept(node.value));
+    }
+
+    int size() {
+        return map.size();
+    }
+
+    private void added(Node<K, V> node) {
+        queue.offer(node);
+        if (queued.incrementAndGet() > 2 * maxSize || map.size() > maxSize) {
+            evict();
+        }
+    }
+
+    private void evict() {
+        if (!evicting.tryLock()) {
+            return; // another thread is at it
+        }
+        try {
+            // a used entry is queued again at most once per round, so this is enough to get below the bound
+            for (int steps = queued.get() * 2; steps > 0; steps--) {
+                if (map.size() <= maxSize && queued.get() <= 2 * maxSize) {
+                    return;
+                }
+                Node<K, V> node = queue.poll();
+                if (node == null) {
+                    return;
+                }
+                queued.decrementAndGet();
+                if (map.get(node.key) != node) {
+                    continue; // removed or replaced
+                }
+                if (node.used || map.size() <= maxSize) {
+                    // only dropping removed entries, or giving a used one a second chance
+                    node.used = false;
+                    queue.offer(node);
+                    queued.incrementAndGet();
+                } else {
+                    map.remove(node.key, node);
+                }
+            }
+        } finally {
+            evicting.unlock();
+        }
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        /**
+         * Whether the entry was looked up since it was added or last considered for eviction.
+         * Not volatile, a lost update only changes which entry is evicted.
+         */
+        boolean used;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
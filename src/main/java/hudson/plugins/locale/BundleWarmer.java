@@ -0,0 +1,296 @@
+package hudson.plugins.locale;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.PluginWrapper;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONObject;
+import org.jvnet.localizer.ResourceBundleHolder;
+
+/**
+ * Loads the {@code Messages} resource bundles of Jenkins core and of all plugins in the background,
+ * so that the first pages rendered after the default language changed do not pay for it.
+ * <p>
+ * Besides the new default language, the languages most used by the users in {@link UserLocaleCache} are warmed up.
+ * At most {@link #CONCURRENCY} bundles are loaded at once, by a pool of as many threads that stop when idle.
+ * Starting a warm-up cancels the one in progress, whose threads move on to the new one after their current bundle.
+ */
+@Extension
+public final class BundleWarmer {
+
+    private static final Logger LOGGER = Logger.getLogger(BundleWarmer.class.getName());
+
+    /**
+     * Maximum number of bundles loaded at the same time.
+     */
+    static final int CONCURRENCY =
+            Math.max(1, SystemProperties.getInteger(BundleWarmer.class.getName() + ".concurrency", 4));
+
+    /**
+     * Number of user languages warmed up besides the default one.
+     */
+    static final int USER_LOCALES = 3;
+
+    private static final String SUFFIX = "Messages.properties";
+
+    private final ThreadPoolExecutor executor = newExecutor();
+
+    private volatile Progress current;
+
+    public static BundleWarmer get() {
+        return ExtensionList.lookupSingleton(BundleWarmer.class);
+    }
+
+    /**
+     * Starts warming up the bundles for the given locale and the most used user locales,
+     * cancelling any warm-up in progress.
+     *
+     * @param defaultLocale the new default locale
+     * @return the progress of the warm-up
+     */
+    @NonNull
+    public synchronized Progress start(@NonNull Locale defaultLocale) {
+        Set<Locale> locales = new LinkedHashSet<>();
+        locales.add(defaultLocale);
+        locales.addAll(UserLocaleCache.get().mostUsed(USER_LOCALES));
+        Progress previous = current;
+        if (previous != null) {
+            previous.cancel();
+        }
+        Progress progress = new Progress(List.copyOf(locales));
+        current = progress;
+        executor.execute(() -> progress.run(executor));
+        return progress;
+    }
+
+    /**
+     * @return the number of threads currently warming up or waiting for more work
+     */
+    int getThreadCount() {
+        return executor.getPoolSize();
+    }
+
+    /**
+     * @return the progress of the last warm-up, or {@code null} if there was none
+     */
+    @CheckForNull
+    public Progress getProgress() {
+        return current;
+    }
+
+    /**
+     * @return the names of the {@code Messages} classes of Jenkins core and of all active plugins,
+     *      with the class loader to load them from
+     */
+    private static List<Bundle> findBundles() {
+        List<Bundle> bundles = new ArrayList<>();
+        addBundles(bundles, Jenkins.class.getClassLoader(), ResourceScanner.coreLocations());
+        for (PluginWrapper plugin : Jenkins.get().getPluginManager().getPlugins()) {
+            if (plugin.isActive()) {
+                addBundles(bundles, plugin.classLoader, ResourceScanner.locations(plugin));
+            }
+        }
+        return bundles;
+    }
+
+    private static void addBundles(List<Bundle> bundles, ClassLoader loader, List<File> locations) {
+        for (File location : locations) {
+            try {
+                ResourceScanner.forEachEntry(location, name -> {
+                    if (name.endsWith(SUFFIX) && (name.length() == SUFFIX.length() || name.endsWith("/" + SUFFIX))) {
+                        String className = name.substring(0, name.length() - ".properties".length())
+                                .replace('/', '.');
+                        bundles.add(new Bundle(loader, className));
+                    }
+                });
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, e, () -> "Unable to scan " + location);
+            }
+        }
+    }
+
+    private static ThreadPoolExecutor newExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                CONCURRENCY,
+                CONCURRENCY,
+                10,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "Locale resource bundle warm-up"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private record Bundle(ClassLoader loader, String className) {
+
+        void load(Locale locale) throws ClassNotFoundException {
+            Class<?> owner = Class.forName(className, false, loader);
+            // the same holder the generated Messages class uses, so this fills its cache
+            ResourceBundleHolder.get(owner).get(locale);
+        }
+    }
+
+    /**
+     * Progress of a warm-up.
+     */
+    public static final class Progress {
+
+        private final List<Locale> locales;
+        private final long startNanos = System.nanoTime();
+        /**
+         * Index of the next bundle to load, over the bundles of each locale in turn.
+         */
+        private final AtomicInteger next = new AtomicInteger();
+        /**
+         * Number of threads still loading bundles.
+         */
+        private final AtomicInteger workers = new AtomicInteger();
+        private final AtomicInteger done = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile int total = -1;
+        private volatile long elapsedNanos = -1;
+        private volatile boolean cancelled;
+        private List<Bundle> bundles = List.of();
+
+        Progress(List<Locale> locales) {
+            this.locales = locales;
+        }
+
+        /**
+         * Finds the bundles, then loads them on this thread and on up to {@link #CONCURRENCY} - 1 more.
+         */
+        private void run(ExecutorService executor) {
+            try {
+                if (!cancelled) {
+                    bundles = findBundles();
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Unable to find resource bundles", e);
+            }
+            total = bundles.size() * locales.size();
+            int count = Math.max(1, Math.min(CONCURRENCY, total));
+            workers.set(count);
+            for (int i = 1; i < count; i++) {
+                executor.execute(this::work);
+            }
+            work();
+        }
+
+        private void work() {
+            try {
+                int size = bundles.size();
+                for (int i = next.getAndIncrement(); i < total && !cancelled; i = next.getAndIncrement()) {
+                    Locale locale = locales.get(i / size);
+                    Bundle bundle = bundles.get(i % size);
+                    try {
+                        bundle.load(locale);
+                    } catch (ClassNotFoundException | LinkageError | RuntimeException e) {
+                        failed.incrementAndGet();
+                        LOGGER.log(Level.FINEST, e, () -> "Unable to load " + bundle.className());
+                    } finally {
+                        done.incrementAndGet();
+                    }
+                }
+            } finally {
+                if (workers.decrementAndGet() == 0) {
+                    finish();
+                }
+            }
+        }
+
+        private void finish() {
+            elapsedNanos = System.nanoTime() - startNanos;
+            finished.countDown();
+            LOGGER.log(
+                    Level.INFO,
+                    "Warmed up {0} of {1} resource bundles for {2} in {3} ms{4}",
+                    new Object[] {
+                        done.get(),
+                        Math.max(total, 0),
+                        locales,
+                        TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                        cancelled ? ", cancelled" : ""
+                    });
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * Waits for the warm-up to finish.
+         *
+         * @param timeout how long to wait
+         * @param unit the unit of {@code timeout}
+         * @return whether the warm-up finished in time
+         * @throws InterruptedException if interrupted while waiting
+         */
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            return finished.await(timeout, unit);
+        }
+
+        public List<Locale> getLocales() {
+            return locales;
+        }
+
+        /**
+         * @return the number of bundles to load, counting each locale separately, or -1 while still scanning
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        public int getDone() {
+            return done.get();
+        }
+
+        public int getFailed() {
+            return failed.get();
+        }
+
+        public boolean isRunning() {
+            return finished.getCount() > 0;
+        }
+
+        /**
+         * @return how long the warm-up took, or has been running for
+         */
+        public long getElapsedMillis() {
+            long elapsed = elapsedNanos;
+            return TimeUnit.NANOSECONDS.toMillis(elapsed < 0 ? System.nanoTime() - startNanos : elapsed);
+        }
+
+        @NonNull
+        public JSONObject toJSONObject() {
+            return new JSONObject()
+                    .element("locales", locales.stream().map(Locale::toString).toList())
+                    .element("total", getTotal())
+                    .element("done", getDone())
+                    .element("failed", getFailed())
+                    .element("running", isRunning())
+                    .element("cancelled", cancelled)
+                    .element("elapsedMillis", getElapsedMillis());
+        }
+    }
+}
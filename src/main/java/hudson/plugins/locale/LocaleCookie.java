@@ -0,0 +1,148 @@
+package hudson.plugins.locale;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import jenkins.security.HMACConfidentialKey;
+
+/**
+ * The signed cookie read by {@link LocaleResolver.Cookie}, holding one of {@link PluginImpl#ALLOWED_LOCALES}.
+ * <p>
+ * The value looks like {@code fr.3.<mac>}: the locale code, the generation of the key it was signed with, and
+ * the MAC. Cookies signed with the current or the previous {@linkplain PluginImpl#getCookieKeyGeneration() key
+ * generation} are accepted, so {@linkplain PluginImpl#doRotateCookieKey() rotating the key} does not reset the
+ * language of everybody at once. Since there are only a few distinct valid values, each of them is only
+ * verified once, and reading the cookie costs a map lookup afterwards.
+ */
+public final class LocaleCookie {
+
+    /**
+     * Name of the cookie.
+     */
+    public static final String NAME = "jenkins-locale";
+
+    private static final int MAX_AGE = (int) TimeUnit.DAYS.toSeconds(365);
+
+    /**
+     * Upper bound on the number of {@link #VERIFIED} values, a few per locale and generation in practice.
+     */
+    private static final int MAX_VERIFIED = 256;
+
+    private static final Map<Integer, HMACConfidentialKey> KEYS = new ConcurrentHashMap<>();
+
+    /**
+     * Cookie values whose MAC was checked already, with the locale they stand for.
+     */
+    private static final BoundedCache<String, Locale> VERIFIED = new BoundedCache<>(MAX_VERIFIED);
+
+    private LocaleCookie() {}
+
+    /**
+     * @param request the request
+     * @param generation the current key generation
+     * @return the locale stored in the cookie of the request, or {@code null} if there is no valid one
+     */
+    @CheckForNull
+    public static Locale read(@NonNull HttpServletRequest request, int generation) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (NAME.equals(cookie.getName())) {
+                return verify(cookie.getValue(), generation);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores a locale in the cookie, or removes the cookie.
+     *
+     * @param request the current request
+     * @param response the response to add the cookie to
+     * @param locale the locale to store, {@code null} or a locale not in {@link PluginImpl#ALLOWED_LOCALES}
+     *      to remove the cookie
+     * @param generation the current key generation
+     */
+    public static void write(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @CheckForNull Locale locale,
+            int generation) {
+        String code = locale == null ? null : locale.toString();
+        boolean allowed = LocaleRegistry.isAllowed(code);
+        Cookie cookie = new Cookie(NAME, allowed ? sign(code, generation) : "");
+        String contextPath = request.getContextPath();
+        cookie.setPath(contextPath.isEmpty() ? "/" : contextPath);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(request.isSecure());
+        cookie.setMaxAge(allowed ? MAX_AGE : 0);
+        response.addCookie(cookie);
+    }
+
+    /**
+     * @param code one of {@link PluginImpl#ALLOWED_LOCALES}
+     * @param generation the key generation to sign with
+     * @return the cookie value
+     */
+    @NonNull
+    static String sign(@NonNull String code, int generation) {
+        String message = code + '.' + generation;
+        return message + '.' + key(generation).mac(message);
+    }
+
+    /**
+     * @param value the cookie value
+     * @param generation the current key generation
+     * @return the locale of a validly signed value, or {@code null}
+     */
+    @CheckForNull
+    static Locale verify(@CheckForNull String value, int generation) {
+        if (value == null) {
+            return null;
+        }
+        int codeEnd = value.indexOf('.');
+        int generationEnd = codeEnd < 0 ? -1 : value.indexOf('.', codeEnd + 1);
+        if (generationEnd < 0) {
+            return null;
+        }
+        int signedWith;
+        try {
+            signedWith = Integer.parseInt(value, codeEnd + 1, generationEnd, 10);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (signedWith != generation && (signedWith != generation - 1 || signedWith < 0)) {
+            return null; // signed with a retired key
+        }
+        Locale locale = VERIFIED.get(value);
+        if (locale != null) {
+            return locale;
+        }
+        locale = LocaleRegistry.getAllowed(value.substring(0, codeEnd));
+        if (locale == null
+                || !key(signedWith).checkMac(value.substring(0, generationEnd), value.substring(generationEnd + 1))) {
+            return null;
+        }
+        VERIFIED.put(value, locale);
+        return locale;
+    }
+
+    /**
+     * Forgets verified values, called when the key is rotated.
+     */
+    static void clearVerified() {
+        VERIFIED.clear();
+    }
+
+    private static HMACConfidentialKey key(int generation) {
+        return KEYS.computeIfAbsent(generation, g -> new HMACConfidentialKey(LocaleCookie.class, "key" + g, 16));
+    }
+}
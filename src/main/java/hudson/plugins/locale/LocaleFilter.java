@@ -1,27 +1,68 @@
 package hudson.plugins.locale;
 
 import edu.umd.cs.findbugs.annotations.CheckForNull;
-import hudson.model.User;
-import hudson.plugins.locale.user.UserLocaleProperty;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.FilterConfig;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletRequestWrapper;
 import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
-import java.util.NoSuchElementException;
+import java.util.Map;
+import java.util.Set;
 
 /**
+ * Resolves the locale of each request according to {@link PluginImpl.Settings},
+ * by asking the enabled {@link LocaleResolver}s in turn.
+ * <p>
+ * The locale is resolved once per request: forwards, includes, error pages and asynchronous
+ * dispatches of the same request reuse it. The filter keeps no per-thread state, so it is safe
+ * to use with asynchronous requests.
+ *
  * @author <a href="mailto:nicolas.deloof@gmail.com">Nicolas De Loof</a>
  */
 public class LocaleFilter implements Filter {
 
+    /**
+     * Request attribute holding the {@link Locale} resolved for the request,
+     * so that it is not resolved again for the rest of the request.
+     */
+    public static final String LOCALE_ATTRIBUTE = LocaleFilter.class.getName() + ".locale";
+
+    /**
+     * Request attribute marking requests that went through this filter already, holding the {@link ResolvedLocale},
+     * or {@link Boolean#FALSE} if the request was passed through unchanged.
+     */
+    static final String RESOLVED_ATTRIBUTE = LocaleFilter.class.getName() + ".resolved";
+
+    private final PluginImpl plugin;
+
+    private final LocaleMetrics metrics;
+
+    /**
+     * What we derived from the current {@link PluginImpl.Settings}, rebuilt when they change.
+     */
+    private volatile Compiled compiled;
+
+    public LocaleFilter(PluginImpl plugin) {
+        this.plugin = plugin;
+        this.metrics = LocaleMetrics.get();
+        this.compiled = new Compiled(plugin.getSettings());
+    }
+
     @Override
     public void init(FilterConfig filterConfig) {
         // nop
@@ -31,52 +72,67 @@ public class LocaleFilter implements Filter {
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
         if (request instanceof HttpServletRequest req) {
-            PluginImpl plugin = PluginImpl.get();
-            final Locale locale;
+            Object previous = req.getAttribute(RESOLVED_ATTRIBUTE);
+            if (previous != null) {
+                // forward, include, error or async dispatch of a request we already handled
+                if (previous instanceof ResolvedLocale resolved && !isLocaleRequest(req)) {
+                    request = new LocaleRequest(req, resolved, plugin.getSettings().localeETags());
+                }
+                chain.doFilter(request, response);
+                return;
+            }
 
-            if (plugin == null) {
+            Compiled compiled = compiled(plugin.getSettings());
+            if (compiled.bypass.firstMatch(req.getRequestURI(), req.getContextPath().length()) != null) {
+                metrics.recordBypass();
                 chain.doFilter(request, response);
                 return;
-            } else if (plugin.isAllowUserPreferences()) {
-                locale = getCurrentUserLocale();
-            } else if (plugin.isIgnoreAcceptLanguage()) {
-                locale = Locale.getDefault();
-            } else {
-                locale = null;
             }
 
-            if (locale != null) {
-                request = new HttpServletRequestWrapper(req) {
-                    @Override
-                    public Locale getLocale() {
-                        // Force locale to configured default, ignore requests Accept-Language header
-                        return locale;
-                    }
+            PluginImpl.Settings settings = compiled.settings;
+            boolean timed = settings.metricsEnabled();
+            long start = timed ? System.nanoTime() : 0L;
+            Locale locale = null;
+            String mode = "browser";
+            LocaleResolver[] resolvers = compiled.resolvers;
+            int resolvedBy = resolvers.length;
+            for (int i = 0; i < resolvers.length; i++) {
+                if (timed) {
+                    long before = System.nanoTime();
+                    locale = resolvers[i].resolve(req, settings);
+                    compiled.stats[i].record(locale != null, System.nanoTime() - before);
+                } else {
+                    locale = resolvers[i].resolve(req, settings);
+                }
+                if (locale != null) {
+                    mode = resolvers[i].getName();
+                    resolvedBy = i;
+                    break;
+                }
+            }
 
-                    @Override
-                    public Enumeration<Locale> getLocales() {
-                        // Create a custom Enumeration with only the default locale
-                        return new Enumeration<>() {
-                            private boolean hasMoreElements = true;
-
-                            @Override
-                            public boolean hasMoreElements() {
-                                return hasMoreElements;
-                            }
-
-                            @Override
-                            public Locale nextElement() {
-                                if (hasMoreElements) {
-                                    hasMoreElements = false;
-                                    return getLocale();
-                                } else {
-                                    throw new NoSuchElementException();
-                                }
-                            }
-                        };
-                    }
-                };
-                ((HttpServletResponse) response).addHeader("X-Jenkins-Language", locale.toString());
+            HttpServletResponse rsp = (HttpServletResponse) response;
+            ResolvedLocale resolved = locale == null ? null : ResolvedLocale.of(locale);
+            boolean perUser = false;
+            if (settings.cacheHeaders()) {
+                addCacheHeaders(rsp, compiled, resolvedBy, resolved);
+                perUser = compiled.perUser[resolvedBy];
+            }
+            boolean eTags = resolved != null && settings.localeETags();
+
+            if (resolved != null) {
+                req.setAttribute(LOCALE_ATTRIBUTE, locale);
+                req.setAttribute(RESOLVED_ATTRIBUTE, resolved);
+                request = new LocaleRequest(req, resolved, eTags);
+                rsp.addHeader("X-Jenkins-Language", resolved.getHeader());
+            } else {
+                req.setAttribute(RESOLVED_ATTRIBUTE, Boolean.FALSE);
+            }
+            if (eTags || perUser) {
+                response = new LocaleResponse(rsp, eTags ? resolved : null, perUser);
+            }
+            if (timed) {
+                metrics.recordRequest(mode, locale, System.nanoTime() - start);
             }
         }
         chain.doFilter(request, response);
@@ -87,16 +143,328 @@ public class LocaleFilter implements Filter {
         // nop
     }
 
-    @CheckForNull
-    private Locale getCurrentUserLocale() {
-        User user = User.current();
-        if (user != null) {
-            UserLocaleProperty userLocaleProperty = user.getProperty(UserLocaleProperty.class);
-            if (userLocaleProperty == null) {
-                return null;
+    /**
+     * @return the number of requests that skipped locale resolution because of {@link PluginImpl#getBypassPaths()}
+     */
+    public long getBypassedCount() {
+        return metrics.getBypassedCount();
+    }
+
+    /**
+     * Tells caches in front of Jenkins what the response depends on, except for {@code Cache-Control},
+     * which {@link LocaleResponse} takes care of.
+     *
+     * @param resolvedBy the index of the resolver that found the locale, or the number of resolvers if none did
+     */
+    private static void addCacheHeaders(
+            HttpServletResponse response, Compiled compiled, int resolvedBy, ResolvedLocale resolved) {
+        String vary = compiled.vary[resolvedBy];
+        if (vary != null) {
+            response.addHeader("Vary", vary);
+        }
+        if (resolved != null) {
+            response.setHeader("Content-Language", resolved.getLanguageTag());
+        }
+    }
+
+    /**
+     * @param value the value of a conditional request header, that is a list of entity tags, {@code *},
+     *      or a date for {@code If-Range}
+     * @param suffix the suffix {@link LocaleResponse} adds to entity tags
+     * @return the value without the suffix in each entity tag that has it
+     */
+    static String stripETagSuffix(String value, String suffix) {
+        if (value == null || !value.contains(suffix)) {
+            return value;
+        }
+        StringBuilder stripped = new StringBuilder(value.length());
+        boolean quoted = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                if (quoted && endsWith(stripped, suffix)) {
+                    stripped.setLength(stripped.length() - suffix.length());
+                }
+                quoted = !quoted;
+            } else if (c == ',' && !quoted && endsWith(stripped, suffix)) {
+                // unquoted tags, as sent back for values LocaleResponse did not find quoted
+                stripped.setLength(stripped.length() - suffix.length());
             }
-            return userLocaleProperty.getLocale();
+            stripped.append(c);
+        }
+        if (!quoted && endsWith(stripped, suffix)) {
+            stripped.setLength(stripped.length() - suffix.length());
+        }
+        return stripped.toString();
+    }
+
+    private static boolean endsWith(StringBuilder builder, String suffix) {
+        int start = builder.length() - suffix.length();
+        return start >= 0 && builder.indexOf(suffix, start) == start;
+    }
+
+    private static boolean isLocaleRequest(ServletRequest request) {
+        return request instanceof LocaleRequest
+                || request instanceof ServletRequestWrapper wrapper && wrapper.isWrapperFor(LocaleRequest.class);
+    }
+
+    /**
+     * @param settings the configuration
+     * @return whether this filter would change anything, that is whether any {@link LocaleResolver}
+     *      or the caching headers are enabled
+     */
+    boolean isRequired(PluginImpl.Settings settings) {
+        return settings.cacheHeaders() || compiled(settings).resolvers.length > 0;
+    }
+
+    private Compiled compiled(PluginImpl.Settings settings) {
+        Compiled current = compiled;
+        if (current.settings != settings) {
+            current = new Compiled(settings);
+            compiled = current;
+        }
+        return current;
+    }
+
+    private static final class Compiled {
+        final PluginImpl.Settings settings;
+        final PrefixTrie<String> bypass;
+        /**
+         * The enabled resolvers, in the order they are asked, starting with {@link PathRules} if there are any.
+         */
+        final LocaleResolver[] resolvers;
+        /**
+         * The counters of each of {@link #resolvers}.
+         */
+        final LocaleMetrics.ResolverStats[] stats;
+        /**
+         * The {@code Vary} header when the resolver at that index found the locale, the last one is for when none did.
+         * Each resolver that was asked contributes, since its answer could have been different.
+         */
+        final String[] vary;
+        /**
+         * Whether the response is private when the resolver at that index found the locale, like {@link #vary}.
+         */
+        final boolean[] perUser;
+
+        Compiled(PluginImpl.Settings settings) {
+            this.settings = settings;
+            Map<String, String> prefixes = new HashMap<>();
+            for (String path : settings.bypassPaths()) {
+                prefixes.put(path, path);
+            }
+            this.bypass = PrefixTrie.compile(prefixes);
+            List<LocaleResolver> enabled = new ArrayList<>();
+            if (!settings.pathRules().isEmpty()) {
+                enabled.add(new PathRules(settings.pathRules()));
+            }
+            for (LocaleResolver resolver : order(LocaleResolver.all(), settings.resolverOrder())) {
+                if (resolver.isEnabled(settings)) {
+                    enabled.add(resolver);
+                }
+            }
+            this.resolvers = enabled.toArray(LocaleResolver[]::new);
+            this.stats = new LocaleMetrics.ResolverStats[resolvers.length];
+            for (int i = 0; i < resolvers.length; i++) {
+                stats[i] = LocaleMetrics.get().resolver(resolvers[i].getName());
+            }
+            this.vary = new String[resolvers.length + 1];
+            this.perUser = new boolean[resolvers.length + 1];
+            Set<String> headers = new LinkedHashSet<>();
+            boolean user = false;
+            for (int i = 0; i <= resolvers.length; i++) {
+                if (i < resolvers.length) {
+                    headers.addAll(resolvers[i].getVaryHeaders());
+                    user |= resolvers[i].isPerUser();
+                } else {
+                    // the locale of the browser is used as is
+                    headers.add("Accept-Language");
+                }
+                vary[i] = headers.isEmpty() ? null : String.join(", ", headers);
+                perUser[i] = user;
+            }
+        }
+
+        /**
+         * @return the resolvers named in {@code names}, in that order, or all resolvers if there are no names
+         */
+        private static List<LocaleResolver> order(List<LocaleResolver> all, List<String> names) {
+            if (names.isEmpty()) {
+                return all;
+            }
+            List<LocaleResolver> ordered = new ArrayList<>();
+            for (String name : names) {
+                for (LocaleResolver resolver : all) {
+                    if (resolver.getName().equals(name) && !ordered.contains(resolver)) {
+                        ordered.add(resolver);
+                    }
+                }
+            }
+            return ordered;
+        }
+    }
+
+    /**
+     * Applies {@link PluginImpl#getPathRules()}, compiled into a {@link PrefixTrie} once per configuration change,
+     * so that matching costs the same however many rules there are. Always asked first, whatever
+     * {@link PluginImpl#getResolverOrder()} says, and not an extension, since it only exists while there are rules.
+     */
+    static final class PathRules extends LocaleResolver {
+
+        private final PrefixTrie<Locale> rules;
+
+        PathRules(List<PathLocaleRule> rules) {
+            Map<String, Locale> prefixes = new HashMap<>();
+            for (PathLocaleRule rule : rules) {
+                // the first rule for a path wins
+                prefixes.putIfAbsent(rule.getPath(), rule.getLocale());
+            }
+            this.rules = PrefixTrie.compile(prefixes);
+        }
+
+        @NonNull
+        @Override
+        public String getName() {
+            return "path";
+        }
+
+        @Override
+        public boolean isEnabled(@NonNull PluginImpl.Settings settings) {
+            return true;
+        }
+
+        @Override
+        public Locale resolve(@NonNull HttpServletRequest request, @NonNull PluginImpl.Settings settings) {
+            return rules.longestMatch(request.getRequestURI(), request.getContextPath().length());
+        }
+    }
+
+    /**
+     * Adds the locale to the {@code ETag} of the response, so that caches tell apart the variants of a page,
+     * and keeps the response {@code Cache-Control: private} when it depends on the user, whatever
+     * {@code Cache-Control} the page sets itself.
+     */
+    static final class LocaleResponse extends HttpServletResponseWrapper {
+
+        @CheckForNull
+        private final ResolvedLocale resolved;
+
+        private final boolean perUser;
+
+        /**
+         * @param resolved the locale to add to entity tags, or {@code null} to leave them alone
+         * @param perUser whether the response depends on the user
+         */
+        LocaleResponse(HttpServletResponse response, @CheckForNull ResolvedLocale resolved, boolean perUser) {
+            super(response);
+            this.resolved = resolved;
+            this.perUser = perUser;
+            if (perUser) {
+                response.setHeader("Cache-Control", "private");
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (perUser && "Cache-Control".equalsIgnoreCase(name)) {
+                value = withPrivate(value);
+            }
+            super.setHeader(name, eTag(name, value));
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (perUser && "Cache-Control".equalsIgnoreCase(name)) {
+                // one header, so that caches do not pick the directives they like
+                String current = getHeader(name);
+                super.setHeader(name, withPrivate(current == null ? value : current + ", " + value));
+                return;
+            }
+            super.addHeader(name, eTag(name, value));
+        }
+
+        /**
+         * @param value {@code Cache-Control} directives, may be {@code null}
+         * @return the directives with {@code private} instead of {@code public}, and each directive once
+         */
+        static String withPrivate(String value) {
+            Set<String> directives = new LinkedHashSet<>();
+            directives.add("private");
+            if (value != null) {
+                for (String directive : value.split(",")) {
+                    directive = directive.trim();
+                    String lower = directive.toLowerCase(Locale.ROOT);
+                    if (!directive.isEmpty() && !lower.equals("public") && !lower.equals("private")) {
+                        directives.add(directive);
+                    }
+                }
+            }
+            return String.join(", ", directives);
+        }
+
+        private String eTag(String name, String value) {
+            if (resolved == null || value == null || !"ETag".equalsIgnoreCase(name)) {
+                return value;
+            }
+            String suffix = resolved.getETagSuffix();
+            if (value.length() > 1 && value.endsWith("\"")) {
+                return value.substring(0, value.length() - 1) + suffix + '"';
+            }
+            return value + suffix;
+        }
+    }
+
+    /**
+     * Forces the locale of a request, ignoring its {@code Accept-Language} header.
+     * <p>
+     * With {@link PluginImpl#isLocaleETags()}, also removes the locale that {@link LocaleResponse} added to the
+     * entity tags of conditional headers, so that Jenkins compares them with its own tags.
+     * Tags of other locales are left alone, and do not match.
+     */
+    static final class LocaleRequest extends HttpServletRequestWrapper {
+
+        private final ResolvedLocale resolved;
+        private final boolean eTags;
+
+        LocaleRequest(HttpServletRequest request, ResolvedLocale resolved, boolean eTags) {
+            super(request);
+            this.resolved = resolved;
+            this.eTags = eTags;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            String value = super.getHeader(name);
+            return eTags && isConditional(name) ? stripETagSuffix(value, resolved.getETagSuffix()) : value;
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            Enumeration<String> values = super.getHeaders(name);
+            if (!eTags || values == null || !isConditional(name)) {
+                return values;
+            }
+            List<String> stripped = new ArrayList<>();
+            while (values.hasMoreElements()) {
+                stripped.add(stripETagSuffix(values.nextElement(), resolved.getETagSuffix()));
+            }
+            return Collections.enumeration(stripped);
+        }
+
+        private static boolean isConditional(String name) {
+            return "If-None-Match".equalsIgnoreCase(name)
+                    || "If-Match".equalsIgnoreCase(name)
+                    || "If-Range".equalsIgnoreCase(name);
+        }
+
+        @Override
+        public Locale getLocale() {
+            return resolved.getLocale();
+        }
+
+        @Override
+        public Enumeration<Locale> getLocales() {
+            return resolved.getLocales();
         }
-        return null;
     }
 }
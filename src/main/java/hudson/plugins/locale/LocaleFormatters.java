@@ -0,0 +1,222 @@
+package hudson.plugins.locale;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.text.NumberFormat;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jvnet.localizer.LocaleProvider;
+
+/**
+ * Shared formatters for the locale pages are rendered in, so that pages listing many builds do not create
+ * a formatter for every timestamp, duration or size they print.
+ * <p>
+ * Methods without a {@link Locale} parameter use {@link LocaleProvider#getLocale()}, that is the locale
+ * {@link LocaleFilter} resolved for the current request. {@link DateTimeFormatter}s are immutable and cached.
+ * {@link NumberFormat}s are not thread-safe, so they are pooled, and only used through
+ * {@link #format(NumberStyle, Number)}. Both caches are {@link BoundedCache}s.
+ */
+public final class LocaleFormatters {
+
+    /**
+     * Upper bound on the number of cached {@link DateTimeFormatter}s.
+     */
+    private static final int MAX_DATE_TIME_FORMATTERS = 1024;
+
+    /**
+     * Upper bound on the number of {@link NumberFormat} pools.
+     */
+    private static final int MAX_NUMBER_POOLS = 512;
+
+    /**
+     * Upper bound on the number of idle {@link NumberFormat}s kept per pool.
+     */
+    private static final int MAX_IDLE = 8;
+
+    private static final BoundedCache<DateTimeKey, DateTimeFormatter> DATE_TIME =
+            new BoundedCache<>(MAX_DATE_TIME_FORMATTERS);
+
+    private static final BoundedCache<NumberKey, NumberPool> NUMBERS = new BoundedCache<>(MAX_NUMBER_POOLS);
+
+    private LocaleFormatters() {}
+
+    /**
+     * Styles of {@link NumberFormat}.
+     */
+    public enum NumberStyle {
+        /**
+         * {@link NumberFormat#getNumberInstance(Locale)}.
+         */
+        NUMBER,
+        /**
+         * {@link NumberFormat#getIntegerInstance(Locale)}.
+         */
+        INTEGER,
+        /**
+         * {@link NumberFormat#getPercentInstance(Locale)}.
+         */
+        PERCENT,
+        /**
+         * Short {@link NumberFormat#getCompactNumberInstance(Locale, NumberFormat.Style)}, like {@code 1.2K}.
+         */
+        COMPACT;
+
+        NumberFormat create(Locale locale) {
+            return switch (this) {
+                case NUMBER -> NumberFormat.getNumberInstance(locale);
+                case INTEGER -> NumberFormat.getIntegerInstance(locale);
+                case PERCENT -> NumberFormat.getPercentInstance(locale);
+                case COMPACT -> NumberFormat.getCompactNumberInstance(locale, NumberFormat.Style.SHORT);
+            };
+        }
+    }
+
+    /**
+     * @return the locale of the current request, or the default language outside of requests
+     */
+    @NonNull
+    public static Locale currentLocale() {
+        return LocaleProvider.getLocale();
+    }
+
+    /**
+     * @param dateStyle the style of the date, or {@code null} for no date
+     * @param timeStyle the style of the time, or {@code null} for no time
+     * @return a formatter for the current locale
+     */
+    @NonNull
+    public static DateTimeFormatter dateTime(FormatStyle dateStyle, FormatStyle timeStyle) {
+        return dateTime(dateStyle, timeStyle, currentLocale());
+    }
+
+    /**
+     * @param dateStyle the style of the date, or {@code null} for no date
+     * @param timeStyle the style of the time, or {@code null} for no time
+     * @param locale the locale
+     * @return a formatter for the given locale
+     */
+    @NonNull
+    public static DateTimeFormatter dateTime(FormatStyle dateStyle, FormatStyle timeStyle, @NonNull Locale locale) {
+        if (dateStyle == null && timeStyle == null) {
+            throw new IllegalArgumentException("Either dateStyle or timeStyle must be given");
+        }
+        return cached(new StyleKey(dateStyle, timeStyle, locale));
+    }
+
+    /**
+     * @param pattern a pattern of {@link DateTimeFormatter#ofPattern(String, Locale)}
+     * @return a formatter for the current locale
+     */
+    @NonNull
+    public static DateTimeFormatter ofPattern(@NonNull String pattern) {
+        return ofPattern(pattern, currentLocale());
+    }
+
+    /**
+     * @param pattern a pattern of {@link DateTimeFormatter#ofPattern(String, Locale)}
+     * @param locale the locale
+     * @return a formatter for the given locale
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    @NonNull
+    public static DateTimeFormatter ofPattern(@NonNull String pattern, @NonNull Locale locale) {
+        return cached(new PatternKey(pattern, locale));
+    }
+
+    /**
+     * @param style the style
+     * @param value the number to format
+     * @return the formatted number, for the current locale
+     */
+    @NonNull
+    public static String format(@NonNull NumberStyle style, @NonNull Number value) {
+        return format(style, value, currentLocale());
+    }
+
+    /**
+     * @param style the style
+     * @param value the number to format
+     * @param locale the locale
+     * @return the formatted number
+     */
+    @NonNull
+    public static String format(@NonNull NumberStyle style, @NonNull Number value, @NonNull Locale locale) {
+        NumberPool pool = NUMBERS.computeIfAbsent(
+                new NumberKey(style, locale), k -> new NumberPool(k.style().create(k.locale())));
+        NumberFormat format = pool.borrow();
+        try {
+            return format.format(value);
+        } finally {
+            pool.release(format);
+        }
+    }
+
+    private static DateTimeFormatter cached(DateTimeKey key) {
+        return DATE_TIME.computeIfAbsent(key, DateTimeKey::create);
+    }
+
+    private sealed interface DateTimeKey permits StyleKey, PatternKey {
+        DateTimeFormatter create();
+    }
+
+    private record StyleKey(FormatStyle date, FormatStyle time, Locale locale) implements DateTimeKey {
+
+        @Override
+        public DateTimeFormatter create() {
+            DateTimeFormatter formatter;
+            if (date == null) {
+                formatter = DateTimeFormatter.ofLocalizedTime(time);
+            } else if (time == null) {
+                formatter = DateTimeFormatter.ofLocalizedDate(date);
+            } else {
+                formatter = DateTimeFormatter.ofLocalizedDateTime(date, time);
+            }
+            return formatter.withLocale(locale);
+        }
+    }
+
+    private record PatternKey(String pattern, Locale locale) implements DateTimeKey {
+
+        @Override
+        public DateTimeFormatter create() {
+            return DateTimeFormatter.ofPattern(pattern, locale);
+        }
+    }
+
+    private record NumberKey(NumberStyle style, Locale locale) {}
+
+    /**
+     * Idle copies of a {@link NumberFormat}, cloned from a prototype that is never handed out.
+     */
+    private static final class NumberPool {
+        private final NumberFormat prototype;
+        private final Queue<NumberFormat> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+
+        NumberPool(NumberFormat prototype) {
+            this.prototype = prototype;
+        }
+
+        NumberFormat borrow() {
+            NumberFormat format = idle.poll();
+            if (format != null) {
+                idleCount.decrementAndGet();
+                return format;
+            }
+            synchronized (prototype) {
+                return (NumberFormat) prototype.clone();
+            }
+        }
+
+        void release(NumberFormat format) {
+            if (idleCount.incrementAndGet() <= MAX_IDLE) {
+                idle.offer(format);
+            } else {
+                idleCount.decrementAndGet();
+            }
+        }
+    }
+}
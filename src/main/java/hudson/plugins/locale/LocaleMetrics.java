@@ -0,0 +1,355 @@
+package hudson.plugins.locale;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+/**
+ * Counters describing how {@link LocaleFilter} and our {@link org.jvnet.localizer.LocaleProvider} resolve locales.
+ * <p>
+ * All counters are {@link LongAdder}s, so concurrent requests do not contend on them. Apart from
+ * {@linkplain #recordBypass() bypassed requests} and {@linkplain #recordStartupPhase(String, long) startup},
+ * nothing is recorded unless enabled in {@link PluginImpl}, in which case callers skip timing altogether.
+ */
+@Extension
+public final class LocaleMetrics implements LocaleMetricsMXBean {
+
+    private static final Logger LOGGER = Logger.getLogger(LocaleMetrics.class.getName());
+
+    static final String OBJECT_NAME = "hudson.plugins.locale:type=LocaleMetrics";
+
+    /**
+     * Latency buckets are powers of two in nanoseconds, the last one collects everything above ~0.5s.
+     */
+    private static final int LATENCY_BUCKETS = 31;
+
+    /**
+     * Upper bound on the number of distinct locales counted separately, the rest is counted as {@link #OTHER}.
+     */
+    private static final int MAX_LOCALES = 256;
+
+    private static final String OTHER = "other";
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+    private final LongAdder providerCalls = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> byMode = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> byLocale = new ConcurrentHashMap<>();
+    private final LongAdder[] latency = new LongAdder[LATENCY_BUCKETS];
+    private final ConcurrentMap<String, ResolverStats> resolvers = new ConcurrentHashMap<>();
+    private final Map<String, Long> startup = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    public LocaleMetrics() {
+        for (int i = 0; i < latency.length; i++) {
+            latency[i] = new LongAdder();
+        }
+    }
+
+    public static LocaleMetrics get() {
+        return ExtensionList.lookupSingleton(LocaleMetrics.class);
+    }
+
+    /**
+     * Records a request that skipped locale resolution.
+     */
+    void recordBypass() {
+        bypassed.increment();
+    }
+
+    /**
+     * Records a request handled by {@link LocaleFilter}.
+     *
+     * @param mode how the locale was resolved
+     * @param locale the resolved locale, {@code null} if the request was passed through unchanged
+     * @param nanos the time it took to resolve the locale
+     */
+    void recordRequest(@NonNull String mode, Locale locale, long nanos) {
+        requests.increment();
+        counter(byMode, mode).increment();
+        if (locale != null) {
+            String key = locale.toString();
+            LongAdder counter = byLocale.get(key);
+            if (counter == null) {
+                counter = byLocale.size() < MAX_LOCALES ? counter(byLocale, key) : counter(byLocale, OTHER);
+            }
+            counter.increment();
+        }
+        latency[bucket(nanos)].increment();
+    }
+
+    /**
+     * Returns the counters of a {@link LocaleResolver}, looked up by {@link LocaleFilter} once per configuration
+     * change.
+     *
+     * @param name the {@linkplain LocaleResolver#getName() name} of the resolver
+     * @return the counters of the resolver
+     */
+    @NonNull
+    ResolverStats resolver(@NonNull String name) {
+        return resolvers.computeIfAbsent(name, k -> new ResolverStats());
+    }
+
+    /**
+     * Records how long a phase of the startup of {@link PluginImpl} took, replacing any earlier time of that phase.
+     * Always recorded, since it only happens once per startup.
+     *
+     * @param phase the phase, like {@code parse}
+     * @param nanos how long it took
+     */
+    void recordStartupPhase(@NonNull String phase, long nanos) {
+        startup.put(phase, nanos);
+    }
+
+    /**
+     * Records a call to our {@link org.jvnet.localizer.LocaleProvider}.
+     */
+    void recordProviderCall() {
+        providerCalls.increment();
+    }
+
+    /**
+     * Clears all counters.
+     */
+    public void reset() {
+        requests.reset();
+        bypassed.reset();
+        providerCalls.reset();
+        byMode.clear();
+        byLocale.clear();
+        for (LongAdder bucket : latency) {
+            bucket.reset();
+        }
+        // LocaleFilter holds on to these, so keep them
+        resolvers.values().forEach(ResolverStats::reset);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return PluginImpl.get().getSettings().metricsEnabled();
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getBypassedCount() {
+        return bypassed.sum();
+    }
+
+    @Override
+    public Map<String, Long> getRequestsByMode() {
+        return sums(byMode);
+    }
+
+    @Override
+    public Map<String, Long> getRequestsByLocale() {
+        return sums(byLocale);
+    }
+
+    @Override
+    public long[] getLatencyBucketUpperBoundsNanos() {
+        long[] bounds = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = i == LATENCY_BUCKETS - 1 ? Long.MAX_VALUE : 1L << i;
+        }
+        return bounds;
+    }
+
+    @Override
+    public long[] getLatencyBucketCounts() {
+        long[] counts = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = latency[i].sum();
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getResolverCallCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        resolvers.forEach((name, stats) -> counts.put(name, stats.calls.sum()));
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getResolverHitCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        resolvers.forEach((name, stats) -> counts.put(name, stats.hits.sum()));
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getResolverNanos() {
+        Map<String, Long> nanos = new TreeMap<>();
+        resolvers.forEach((name, stats) -> nanos.put(name, stats.nanos.sum()));
+        return nanos;
+    }
+
+    @Override
+    public Map<String, Long> getStartupNanos() {
+        synchronized (startup) {
+            return new LinkedHashMap<>(startup);
+        }
+    }
+
+    @Override
+    public long getUserCacheHitCount() {
+        return UserLocaleCache.get().getHitCount();
+    }
+
+    @Override
+    public long getUserCacheMissCount() {
+        return UserLocaleCache.get().getMissCount();
+    }
+
+    @Override
+    public long getAcceptLanguageCacheHitCount() {
+        return AcceptLanguageNegotiator.get().getHitCount();
+    }
+
+    @Override
+    public long getAcceptLanguageCacheMissCount() {
+        return AcceptLanguageNegotiator.get().getMissCount();
+    }
+
+    @Override
+    public long getProviderCallCount() {
+        return providerCalls.sum();
+    }
+
+    /**
+     * @return all counters, as served by {@link PluginImpl#doMetrics()}
+     */
+    @NonNull
+    public JSONObject toJSONObject() {
+        JSONArray histogram = new JSONArray();
+        long[] bounds = getLatencyBucketUpperBoundsNanos();
+        long[] counts = getLatencyBucketCounts();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                histogram.add(new JSONObject()
+                        .element("upperBoundNanos", bounds[i])
+                        .element("count", counts[i]));
+            }
+        }
+        JSONObject resolverJson = new JSONObject();
+        new TreeMap<>(resolvers)
+                .forEach((name, stats) -> resolverJson.element(
+                        name,
+                        new JSONObject()
+                                .element("calls", stats.calls.sum())
+                                .element("hits", stats.hits.sum())
+                                .element("nanos", stats.nanos.sum())));
+        BundleWarmer.Progress warmup = BundleWarmer.get().getProgress();
+        JSONObject startupJson = new JSONObject();
+        getStartupNanos().forEach((phase, nanos) -> startupJson.element(phase, nanos / 1_000_000.0));
+        return new JSONObject()
+                .element("enabled", isEnabled())
+                .element("requests", getRequestCount())
+                .element("bypassed", getBypassedCount())
+                .element("byMode", getRequestsByMode())
+                .element("byLocale", getRequestsByLocale())
+                .element("latency", histogram)
+                .element("resolvers", resolverJson)
+                .element(
+                        "userCache",
+                        new JSONObject()
+                                .element("hits", getUserCacheHitCount())
+                                .element("misses", getUserCacheMissCount())
+                                .element("size", UserLocaleCache.get().size()))
+                .element(
+                        "acceptLanguageCache",
+                        new JSONObject()
+                                .element("hits", getAcceptLanguageCacheHitCount())
+                                .element("misses", getAcceptLanguageCacheMissCount()))
+                .element("providerCalls", getProviderCallCount())
+                .element("startupMillis", startupJson)
+                .element("bundleWarmup", warmup == null ? null : warmup.toJSONObject());
+    }
+
+    /**
+     * Registers this as {@value #OBJECT_NAME}, replacing any previous registration.
+     */
+    void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Unable to register " + OBJECT_NAME, e);
+        }
+    }
+
+    void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.FINE, "Unable to unregister " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * How often a {@link LocaleResolver} was asked, how often it answered, and how long it took in total.
+     */
+    static final class ResolverStats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        void record(boolean hit, long elapsed) {
+            calls.increment();
+            if (hit) {
+                hits.increment();
+            }
+            nanos.add(elapsed);
+        }
+
+        private void reset() {
+            calls.reset();
+            hits.reset();
+            nanos.reset();
+        }
+    }
+
+    private static LongAdder counter(ConcurrentMap<String, LongAdder> counters, String key) {
+        return counters.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+        Map<String, Long> sums = new TreeMap<>();
+        counters.forEach((key, counter) -> sums.put(key, counter.sum()));
+        return sums;
+    }
+
+    private static int bucket(long nanos) {
+        if (nanos <= 0) {
+            return 0;
+        }
+        return Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+    }
+}
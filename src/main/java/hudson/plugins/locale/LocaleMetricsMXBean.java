@@ -0,0 +1,41 @@
+package hudson.plugins.locale;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link LocaleMetrics}, registered as {@value LocaleMetrics#OBJECT_NAME}.
+ */
+public interface LocaleMetricsMXBean {
+
+    boolean isEnabled();
+
+    long getRequestCount();
+
+    long getBypassedCount();
+
+    Map<String, Long> getRequestsByMode();
+
+    Map<String, Long> getRequestsByLocale();
+
+    long[] getLatencyBucketUpperBoundsNanos();
+
+    long[] getLatencyBucketCounts();
+
+    Map<String, Long> getResolverCallCounts();
+
+    Map<String, Long> getResolverHitCounts();
+
+    Map<String, Long> getResolverNanos();
+
+    Map<String, Long> getStartupNanos();
+
+    long getUserCacheHitCount();
+
+    long getUserCacheMissCount();
+
+    long getAcceptLanguageCacheHitCount();
+
+    long getAcceptLanguageCacheMissCount();
+
+    long getProviderCallCount();
+}
@@ -0,0 +1,57 @@
+package hudson.plugins.locale;
+
+import static hudson.plugins.locale.PluginImpl.ALLOWED_LOCALES;
+import static hudson.plugins.locale.PluginImpl.USE_BROWSER_LOCALE;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.ListBoxModel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Builds the locale dropdowns of the global and the user configuration.
+ * <p>
+ * The {@link PluginImpl#ALLOWED_LOCALES} options, sorted by display name, only depend on the locale
+ * they are displayed in, so they are computed once per display locale and reused.
+ */
+public final class LocaleOptions {
+
+    private static final ConcurrentMap<Locale, List<Entry>> CACHE = new ConcurrentHashMap<>();
+
+    private LocaleOptions() {}
+
+    /**
+     * Returns the dropdown options: "Use Default Locale" first, followed by the allowed locales.
+     *
+     * @param defaultLocale the locale used when the "Use Default Locale" option is selected
+     * @return a new, modifiable model
+     */
+    @NonNull
+    public static ListBoxModel build(@NonNull Locale defaultLocale) {
+        Locale displayLocale = Locale.getDefault(Locale.Category.DISPLAY);
+        List<Entry> entries = CACHE.computeIfAbsent(displayLocale, LocaleOptions::sortedEntries);
+
+        ListBoxModel items = new ListBoxModel(entries.size() + 1);
+        items.add(new ListBoxModel.Option(
+                "Use Default Locale - " + defaultLocale.getDisplayName(displayLocale) + " (" + defaultLocale + ")",
+                USE_BROWSER_LOCALE));
+        for (Entry entry : entries) {
+            items.add(new ListBoxModel.Option(entry.name(), entry.value()));
+        }
+        return items;
+    }
+
+    private static List<Entry> sortedEntries(Locale displayLocale) {
+        return Arrays.stream(Locale.getAvailableLocales())
+                .filter(locale -> ALLOWED_LOCALES.contains(locale.toString()))
+                .sorted(Comparator.comparing(locale -> locale.getDisplayName(displayLocale)))
+                .map(locale -> new Entry(locale.getDisplayName(displayLocale) + " - " + locale, locale.toString()))
+                .toList();
+    }
+
+    private record Entry(String name, String value) {}
+}
@@ -0,0 +1,100 @@
+package hudson.plugins.locale;
+
+import static hudson.plugins.locale.PluginImpl.ALLOWED_LOCALES;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Canonical {@link Locale} instances for locale codes like "ja_JP".
+ * <p>
+ * Codes from {@link PluginImpl#ALLOWED_LOCALES} are resolved from a table built once, other codes are
+ * interned on first use in a {@link BoundedCache}, so repeated parsing of codes in use returns shared instances.
+ */
+public final class LocaleRegistry {
+
+    /**
+     * Upper bound on the number of interned codes that are not in {@link PluginImpl#ALLOWED_LOCALES}.
+     */
+    private static final int MAX_INTERNED = 1024;
+
+    private static final Map<String, Locale> ALLOWED =
+            ALLOWED_LOCALES.stream().collect(Collectors.toUnmodifiableMap(Function.identity(), LocaleRegistry::create));
+
+    private static final BoundedCache<String, Locale> INTERNED = new BoundedCache<>(MAX_INTERNED);
+
+    private LocaleRegistry() {}
+
+    /**
+     * Returns the canonical locale for a code using underscores as delimiters.
+     *
+     * @param s the locale code
+     * @return the shared Locale instance
+     * @throws IllegalArgumentException if the code has more than three components
+     */
+    @NonNull
+    public static Locale parse(@NonNull String s) {
+        String code = s.trim();
+        Locale locale = ALLOWED.get(code);
+        if (locale != null) {
+            return locale;
+        }
+        try {
+            return INTERNED.computeIfAbsent(code, LocaleRegistry::create);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(s + " is not a valid locale", e);
+        }
+    }
+
+    /**
+     * Looks a code up in {@link PluginImpl#ALLOWED_LOCALES}.
+     *
+     * @param code the locale code, like "pt_BR"
+     * @return the canonical locale, or {@code null} if the code is not allowed
+     */
+    @CheckForNull
+    public static Locale getAllowed(@CheckForNull String code) {
+        return code == null ? null : ALLOWED.get(code);
+    }
+
+    /**
+     * @param code the locale code, like "pt_BR"
+     * @return whether the code is one of {@link PluginImpl#ALLOWED_LOCALES}
+     */
+    public static boolean isAllowed(@CheckForNull String code) {
+        return getAllowed(code) != null;
+    }
+
+    /**
+     * Splits the code the way {@code code.split("_")} would, that is ignoring trailing delimiters,
+     * without compiling a pattern or allocating the token array.
+     */
+    @SuppressWarnings("deprecation") // TODO: Migrate to Locale.of() once we upgrade to Java 21
+    private static Locale create(String code) {
+        int end = code.length();
+        while (end > 0 && code.charAt(end - 1) == '_') {
+            end--;
+        }
+        if (end == 0 && !code.isEmpty()) {
+            throw new IllegalArgumentException(code + " has no components");
+        }
+        String trimmed = code.substring(0, end);
+        int first = trimmed.indexOf('_');
+        if (first < 0) {
+            return new Locale(trimmed);
+        }
+        int second = trimmed.indexOf('_', first + 1);
+        if (second < 0) {
+            return new Locale(trimmed.substring(0, first), trimmed.substring(first + 1));
+        }
+        if (trimmed.indexOf('_', second + 1) >= 0) {
+            throw new IllegalArgumentException(code + " has more than three components");
+        }
+        return new Locale(
+                trimmed.substring(0, first), trimmed.substring(first + 1, second), trimmed.substring(second + 1));
+    }
+}
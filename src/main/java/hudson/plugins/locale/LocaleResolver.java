@@ -0,0 +1,204 @@
+package hudson.plugins.locale;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import hudson.model.User;
+import hudson.plugins.locale.user.UserLocaleProperty;
+import hudson.security.ACL;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.Locale;
+import jenkins.model.Jenkins;
+import org.springframework.security.core.Authentication;
+
+/**
+ * One step of the locale resolution performed by {@link LocaleFilter}.
+ * <p>
+ * Resolvers are asked in order, the first one returning a locale wins. The order is the
+ * {@linkplain Extension#ordinal() ordinal} of the resolvers, unless {@link PluginImpl#getResolverOrder()}
+ * says otherwise. {@link PluginImpl#getPathRules()} are applied before all of them. If no resolver returns a locale,
+ * the request keeps the locale of the browser.
+ * <p>
+ * {@link LocaleFilter} decides which resolvers are {@linkplain #isEnabled(PluginImpl.Settings) enabled}
+ * once per configuration change, not on every request, so implementations should only look at the
+ * {@link PluginImpl.Settings} they are given.
+ */
+public abstract class LocaleResolver implements ExtensionPoint {
+
+    /**
+     * @return a short identifier of this resolver, used in {@link PluginImpl#getResolverOrder()} and in metrics
+     */
+    @NonNull
+    public abstract String getName();
+
+    /**
+     * @param settings the current configuration
+     * @return whether this resolver should be asked at all
+     */
+    public abstract boolean isEnabled(@NonNull PluginImpl.Settings settings);
+
+    /**
+     * Resolves the locale of a request. Called once per request, for requests not bypassed.
+     *
+     * @param request the request
+     * @param settings the configuration this resolver was enabled for
+     * @return the locale of the request, or {@code null} to let the next resolver decide
+     */
+    @CheckForNull
+    public abstract Locale resolve(@NonNull HttpServletRequest request, @NonNull PluginImpl.Settings settings);
+
+    /**
+     * Lists what the answer of this resolver depends on, for the {@code Vary} header sent by {@link LocaleFilter}
+     * when {@link PluginImpl#isCacheHeaders()} is enabled.
+     *
+     * @return names of request headers, like {@code Cookie}
+     */
+    @NonNull
+    public List<String> getVaryHeaders() {
+        return List.of();
+    }
+
+    /**
+     * @return whether the answer of this resolver depends on the authenticated user, which makes responses private
+     */
+    public boolean isPerUser() {
+        return false;
+    }
+
+    /**
+     * @return all resolvers, in {@linkplain Extension#ordinal() ordinal} order
+     */
+    public static ExtensionList<LocaleResolver> all() {
+        return ExtensionList.lookup(LocaleResolver.class);
+    }
+
+    /**
+     * Uses the language stored in the signed {@link LocaleCookie}, see {@link PluginImpl#isLocaleCookie()}.
+     * Cheap, so it comes before anything looking up the user, and works for anonymous users too.
+     */
+    @Extension(ordinal = 400)
+    public static final class Cookie extends LocaleResolver {
+
+        @NonNull
+        @Override
+        public String getName() {
+            return "cookie";
+        }
+
+        @Override
+        public boolean isEnabled(@NonNull PluginImpl.Settings settings) {
+            return settings.localeCookie();
+        }
+
+        @Override
+        public Locale resolve(@NonNull HttpServletRequest request, @NonNull PluginImpl.Settings settings) {
+            return LocaleCookie.read(request, settings.cookieKeyGeneration());
+        }
+
+        @NonNull
+        @Override
+        public List<String> getVaryHeaders() {
+            return List.of("Cookie");
+        }
+    }
+
+    /**
+     * Uses the language configured by the current user, see {@link UserLocaleProperty}.
+     */
+    @Extension(ordinal = 300)
+    public static final class UserPreference extends LocaleResolver {
+
+        @NonNull
+        @Override
+        public String getName() {
+            return "user";
+        }
+
+        @Override
+        public boolean isEnabled(@NonNull PluginImpl.Settings settings) {
+            return settings.allowUserPreferences();
+        }
+
+        @Override
+        public Locale resolve(@NonNull HttpServletRequest request, @NonNull PluginImpl.Settings settings) {
+            Authentication authentication = Jenkins.getAuthentication2();
+            if (ACL.isAnonymous2(authentication)) {
+                return null;
+            }
+            return UserLocaleCache.get().get(authentication.getName(), UserPreference::lookupCurrentUserLocale);
+        }
+
+        @Override
+        public boolean isPerUser() {
+            return true;
+        }
+
+        @CheckForNull
+        private static Locale lookupCurrentUserLocale() {
+            User user = User.current();
+            if (user != null) {
+                UserLocaleProperty userLocaleProperty = user.getProperty(UserLocaleProperty.class);
+                if (userLocaleProperty == null) {
+                    return null;
+                }
+                return userLocaleProperty.getLocale();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Forces the default language, see {@link PluginImpl#isIgnoreAcceptLanguage()}.
+     */
+    @Extension(ordinal = 200)
+    public static final class SystemDefault extends LocaleResolver {
+
+        @NonNull
+        @Override
+        public String getName() {
+            return "default";
+        }
+
+        @Override
+        public boolean isEnabled(@NonNull PluginImpl.Settings settings) {
+            return settings.ignoreAcceptLanguage();
+        }
+
+        @Override
+        public Locale resolve(@NonNull HttpServletRequest request, @NonNull PluginImpl.Settings settings) {
+            return settings.defaultLocale();
+        }
+    }
+
+    /**
+     * Narrows the browser preference down to a supported language, see {@link PluginImpl#isNegotiateAcceptLanguage()}.
+     */
+    @Extension(ordinal = 100)
+    public static final class AcceptLanguage extends LocaleResolver {
+
+        @NonNull
+        @Override
+        public String getName() {
+            return "acceptLanguage";
+        }
+
+        @Override
+        public boolean isEnabled(@NonNull PluginImpl.Settings settings) {
+            return settings.negotiateAcceptLanguage();
+        }
+
+        @Override
+        public Locale resolve(@NonNull HttpServletRequest request, @NonNull PluginImpl.Settings settings) {
+            return AcceptLanguageNegotiator.get().negotiate(request.getHeader("Accept-Language"));
+        }
+
+        @NonNull
+        @Override
+        public List<String> getVaryHeaders() {
+            return List.of("Accept-Language");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package hudson.plugins.locale;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+import java.util.Locale;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+import org.kohsuke.stapler.verb.POST;
+
+/**
+ * Forces a language on all pages under a path, like {@code /job/japan-team/}, whatever the browser or
+ * user preference. See {@link PluginImpl#getPathRules()}.
+ */
+public class PathLocaleRule extends AbstractDescribableImpl<PathLocaleRule> {
+
+    private final String path;
+    private final String localeCode;
+
+    /**
+     * @param path a path prefix relative to the context path, like {@code /job/japan-team/}
+     * @param localeCode the language of the pages under the path, like {@code ja}
+     * @throws IllegalArgumentException if the path does not start with {@code /}, or the language is invalid
+     */
+    @DataBoundConstructor
+    public PathLocaleRule(String path, String localeCode) {
+        path = Util.fixEmptyAndTrim(path);
+        localeCode = Util.fixEmptyAndTrim(localeCode);
+        if (path == null || !path.startsWith("/")) {
+            throw new IllegalArgumentException("The path must start with /: " + path);
+        }
+        if (localeCode == null || PluginImpl.USE_BROWSER_LOCALE.equals(localeCode)) {
+            throw new IllegalArgumentException("Missing language for " + path);
+        }
+        PluginImpl.parse(localeCode); // fail early on invalid values
+        this.path = path;
+        this.localeCode = localeCode;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getLocaleCode() {
+        return localeCode;
+    }
+
+    /**
+     * @return the locale that {@link #getLocaleCode()} stands for
+     */
+    @NonNull
+    public Locale getLocale() {
+        return PluginImpl.parse(localeCode);
+    }
+
+    @Override
+    public String toString() {
+        return path + " -> " + localeCode;
+    }
+
+    @Extension
+    @Symbol("pathRule")
+    public static final class DescriptorImpl extends Descriptor<PathLocaleRule> {
+
+        @POST
+        public FormValidation doCheckPath(@QueryParameter String value) {
+            value = Util.fixEmptyAndTrim(value);
+            if (value == null || !value.startsWith("/")) {
+                return FormValidation.error(Messages.PathLocaleRule_InvalidPath());
+            }
+            if (!value.endsWith("/")) {
+                return FormValidation.warning(Messages.PathLocaleRule_NoTrailingSlash());
+            }
+            return FormValidation.ok();
+        }
+
+        @RequirePOST
+        public ListBoxModel doFillLocaleCodeItems() {
+            ListBoxModel items = LocaleOptions.build(Locale.getDefault());
+            items.remove(0); // "Use Default Locale" means nothing here
+            return items;
+        }
+    }
+}
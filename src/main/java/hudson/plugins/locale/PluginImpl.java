@@ -1,22 +1,27 @@
 package hudson.plugins.locale;
 
 import com.thoughtworks.xstream.XStream;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.Util;
 import hudson.XmlFile;
 import hudson.init.InitMilestone;
 import hudson.init.Initializer;
+import hudson.init.Terminator;
+import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
 import hudson.util.PluginServletFilter;
 import hudson.util.XStream2;
 import jakarta.servlet.ServletException;
 import java.io.File;
-import java.util.Arrays;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import jenkins.appearance.AppearanceCategory;
 import jenkins.model.GlobalConfiguration;
 import jenkins.model.GlobalConfigurationCategory;
@@ -24,8 +29,12 @@ import jenkins.model.Jenkins;
 import net.sf.json.JSONObject;
 import org.jenkinsci.Symbol;
 import org.jvnet.localizer.LocaleProvider;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.Stapler;
 import org.kohsuke.stapler.StaplerRequest2;
 import org.kohsuke.stapler.interceptor.RequirePOST;
+import org.kohsuke.stapler.verb.GET;
 
 /**
  * @author Kohsuke Kawaguchi
@@ -34,6 +43,8 @@ import org.kohsuke.stapler.interceptor.RequirePOST;
 @Symbol("locale")
 public class PluginImpl extends GlobalConfiguration {
 
+    private static final Logger LOGGER = Logger.getLogger(PluginImpl.class.getName());
+
     private static final XStream XSTREAM = new XStream2();
 
     static {
@@ -43,9 +54,27 @@ public class PluginImpl extends GlobalConfiguration {
     private String systemLocale;
     private boolean ignoreAcceptLanguage;
     private boolean allowUserPreferences;
+    private boolean negotiateAcceptLanguage;
+    private String bypassPaths;
+    private boolean metricsEnabled;
+    private boolean keepJvmDefaultLocale;
+    private boolean localeCookie;
+    private String resolverOrder;
+    private int cookieKeyGeneration;
+    private boolean cacheHeaders;
+    private boolean localeETags;
+    private boolean warmBundles;
+    private List<PathLocaleRule> pathRules;
 
     public static final String USE_BROWSER_LOCALE = "USE_BROWSER_LOCALE";
 
+    /**
+     * Paths whose responses never depend on the locale, used unless {@link #setBypassPaths(String)} was called.
+     */
+    public static final List<String> DEFAULT_BYPASS_PATHS = List.of(
+            "/static/", "/adjuncts/", "/images/", "/favicon.ico", "/favicon.svg", "/apple-touch-icon.png",
+            "/mask-icon.svg", "/robots.txt");
+
     // Set of allowed locales
     public static final Set<String> ALLOWED_LOCALES = Set.of(
             "bg", "ca", "cs", "da", "de", "el", "en", "es", "es_AR", "et", "fi", "fr", "he", "hu", "it", "ja", "ko",
@@ -57,12 +86,39 @@ public class PluginImpl extends GlobalConfiguration {
      */
     private final transient Locale originalLocale = Locale.getDefault();
 
+    /**
+     * Snapshot of the configuration read by {@link LocaleFilter} and our {@link LocaleProvider}.
+     * Replaced as a whole on every change so that readers never see a mix of old and new values.
+     */
+    private transient volatile Settings settings;
+
+    /**
+     * Set while {@link #configure(StaplerRequest2, JSONObject)} binds the form,
+     * so that only the final state gets published.
+     */
+    private transient boolean binding;
+
+    private transient LocaleFilter filter;
+
+    /**
+     * Whether {@link #filter} is currently registered with {@link PluginServletFilter}.
+     */
+    private transient boolean filterInstalled;
+
     public static PluginImpl get() {
         return Jenkins.get().getExtensionList(PluginImpl.class).get(0);
     }
 
     public PluginImpl() {
-        load();
+        // timed here rather than in load(), so that reloading the configuration keeps the startup timings
+        LocaleMetrics metrics = LocaleMetrics.get();
+        long phaseStart = System.nanoTime();
+        super.load();
+        metrics.recordStartupPhase("parse", System.nanoTime() - phaseStart);
+
+        phaseStart = System.nanoTime();
+        applyLoaded();
+        metrics.recordStartupPhase("apply", System.nanoTime() - phaseStart);
     }
 
     @Override
@@ -75,27 +131,66 @@ public class PluginImpl extends GlobalConfiguration {
         PluginImpl.get().start();
     }
 
-    private void start() throws ServletException {
-        load();
+    /**
+     * Installs what the configuration loaded by the constructor needs, without loading it again.
+     */
+    private void start() {
+        LocaleMetrics metrics = LocaleMetrics.get();
+        long phaseStart = System.nanoTime();
         LocaleProvider.setProvider(new LocaleProvider() {
             final LocaleProvider original = LocaleProvider.getProvider();
 
             @Override
             public Locale get() {
-                if (ignoreAcceptLanguage) {
-                    return Locale.getDefault();
+                Settings settings = getSettings();
+                if (settings.metricsEnabled()) {
+                    metrics.recordProviderCall();
+                }
+                StaplerRequest2 request = Stapler.getCurrentRequest2();
+                if (request == null) {
+                    // outside of requests, e.g. during builds, the original provider would use the JVM default
+                    if (settings.ignoreAcceptLanguage() || settings.keepJvmDefaultLocale()) {
+                        return settings.defaultLocale();
+                    }
+                    return original.get();
                 }
-                return original.get();
+                // views ask many times per request, remember the answer, unless LocaleFilter already did
+                if (request.getAttribute(LocaleFilter.LOCALE_ATTRIBUTE) instanceof Locale locale) {
+                    return locale;
+                }
+                Locale locale = settings.ignoreAcceptLanguage() ? settings.defaultLocale() : original.get();
+                request.setAttribute(LocaleFilter.LOCALE_ATTRIBUTE, locale);
+                return locale;
             }
         });
 
-        PluginServletFilter.addFilter(new LocaleFilter());
+        metrics.recordStartupPhase("provider", System.nanoTime() - phaseStart);
+
+        phaseStart = System.nanoTime();
+        synchronized (this) {
+            filter = new LocaleFilter(this);
+            updateFilter(settings);
+        }
+        metrics.recordStartupPhase("filter", System.nanoTime() - phaseStart);
+        metrics.register();
+        LOGGER.log(Level.FINE, "Started in {0}", metrics.getStartupNanos());
+    }
+
+    @Terminator
+    public static void stop() {
+        LocaleMetrics.get().unregister();
     }
 
     @Override
     public void load() {
         super.load();
-        // make the loaded value take effect
+        applyLoaded();
+    }
+
+    /**
+     * Makes the loaded value take effect.
+     */
+    private void applyLoaded() {
         if (systemLocale == null || systemLocale.isEmpty()) {
             setSystemLocale(USE_BROWSER_LOCALE);
         } else {
@@ -104,12 +199,36 @@ public class PluginImpl extends GlobalConfiguration {
     }
 
     @Override
-    public boolean configure(StaplerRequest2 req, JSONObject jsonObject) {
-        req.bindJSON(this, jsonObject);
+    public synchronized boolean configure(StaplerRequest2 req, JSONObject jsonObject) {
+        List<PathLocaleRule> previousPathRules = pathRules;
+        binding = true;
+        try {
+            // absent from the form when all rules were removed
+            pathRules = null;
+            req.bindJSON(this, jsonObject);
+        } catch (RuntimeException e) {
+            pathRules = previousPathRules;
+            throw e;
+        } finally {
+            binding = false;
+            // also on failure, so that the settings match the fields bound so far
+            publish();
+        }
         save();
         return false;
     }
 
+    /**
+     * Returns the current configuration as a single immutable snapshot.
+     * This is cheap and lock-free, and meant to be used on the request path.
+     *
+     * @return the current settings
+     */
+    @NonNull
+    public Settings getSettings() {
+        return settings;
+    }
+
     public boolean isIgnoreAcceptLanguage() {
         return ignoreAcceptLanguage;
     }
@@ -118,19 +237,82 @@ public class PluginImpl extends GlobalConfiguration {
         return allowUserPreferences;
     }
 
+    public boolean isNegotiateAcceptLanguage() {
+        return negotiateAcceptLanguage;
+    }
+
+    /**
+     * @return the path prefixes for which the locale is not resolved, one per line
+     */
+    public String getBypassPaths() {
+        return bypassPaths == null ? String.join("\n", DEFAULT_BYPASS_PATHS) : bypassPaths;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public boolean isKeepJvmDefaultLocale() {
+        return keepJvmDefaultLocale;
+    }
+
+    public boolean isLocaleCookie() {
+        return localeCookie;
+    }
+
+    /**
+     * @return the {@linkplain LocaleResolver#getName() names} of the resolvers to ask, in order, one per line,
+     *      or an empty string to ask all of them in their default order
+     */
+    public String getResolverOrder() {
+        return resolverOrder == null ? "" : resolverOrder;
+    }
+
+    /**
+     * @return the generation of the key signing the {@link LocaleCookie}, incremented to rotate the key
+     */
+    public int getCookieKeyGeneration() {
+        return cookieKeyGeneration;
+    }
+
+    public boolean isCacheHeaders() {
+        return cacheHeaders;
+    }
+
+    public boolean isLocaleETags() {
+        return localeETags;
+    }
+
+    public boolean isWarmBundles() {
+        return warmBundles;
+    }
+
+    /**
+     * @return the languages forced on all pages under a path, see {@link PathLocaleRule}
+     */
+    @NonNull
+    public List<PathLocaleRule> getPathRules() {
+        return pathRules == null ? List.of() : Collections.unmodifiableList(pathRules);
+    }
+
+    @CheckForNull
+    LocaleFilter getFilter() {
+        return filter;
+    }
+
+    synchronized boolean isFilterInstalled() {
+        return filterInstalled;
+    }
+
     public String getSystemLocale() {
         return systemLocale;
     }
 
     public void setSystemLocale(String systemLocale) {
         systemLocale = Util.fixEmptyAndTrim(systemLocale);
-        if (USE_BROWSER_LOCALE.equals(systemLocale)) {
-            Locale.setDefault(originalLocale);
-            this.systemLocale = USE_BROWSER_LOCALE;
-        } else {
-            Locale.setDefault((systemLocale == null || systemLocale.isEmpty()) ? originalLocale : parse(systemLocale));
-            this.systemLocale = systemLocale;
-        }
+        toDefaultLocale(systemLocale); // fail early on invalid values
+        this.systemLocale = systemLocale;
+        publish();
     }
 
     /**
@@ -141,6 +323,7 @@ public class PluginImpl extends GlobalConfiguration {
      */
     public void setIgnoreAcceptLanguage(boolean ignoreAcceptLanguage) {
         this.ignoreAcceptLanguage = ignoreAcceptLanguage;
+        publish();
     }
 
     /**
@@ -150,23 +333,244 @@ public class PluginImpl extends GlobalConfiguration {
      */
     public void setAllowUserPreferences(boolean allowUserPreferences) {
         this.allowUserPreferences = allowUserPreferences;
+        publish();
+    }
+
+    /**
+     * Sets whether the browser preference should be narrowed down to a single supported language.
+     * @param negotiateAcceptLanguage If {@code true}, pick the best of {@link #ALLOWED_LOCALES}
+     *      according to the {@code Accept-Language} header, instead of passing the header through
+     */
+    public void setNegotiateAcceptLanguage(boolean negotiateAcceptLanguage) {
+        this.negotiateAcceptLanguage = negotiateAcceptLanguage;
+        publish();
     }
 
+    /**
+     * Sets the paths for which the locale is not resolved at all, because their responses never depend on it.
+     * @param bypassPaths path prefixes relative to the context path, like {@code /static/}, one per line
+     */
+    public void setBypassPaths(String bypassPaths) {
+        this.bypassPaths = bypassPaths == null ? null : bypassPaths.trim();
+        publish();
+    }
+
+    /**
+     * Sets whether locale resolution should be measured.
+     * @param metricsEnabled If {@code true}, count and time requests, see {@link #doMetrics()}
+     */
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+        publish();
+    }
+
+    /**
+     * Sets whether the default language should be applied to the whole JVM.
+     * @param keepJvmDefaultLocale If {@code true}, the default language only applies to Jenkins,
+     *      and {@link Locale#setDefault(Locale)} is never called, so reconfiguring does not flush
+     *      the locale sensitive caches of the JDK
+     */
+    public void setKeepJvmDefaultLocale(boolean keepJvmDefaultLocale) {
+        this.keepJvmDefaultLocale = keepJvmDefaultLocale;
+        publish();
+    }
+
+    /**
+     * Sets whether the language may be taken from the {@value LocaleCookie#NAME} cookie.
+     * @param localeCookie If {@code true}, a supported language found in the cookie wins over anything else
+     */
+    public void setLocaleCookie(boolean localeCookie) {
+        this.localeCookie = localeCookie;
+        publish();
+    }
+
+    /**
+     * Sets which {@link LocaleResolver}s are asked for the language of a request, and in which order.
+     * @param resolverOrder resolver names, like {@code user}, one per line, or an empty string for all of them
+     */
+    public void setResolverOrder(String resolverOrder) {
+        this.resolverOrder = Util.fixEmptyAndTrim(resolverOrder);
+        publish();
+    }
+
+    /**
+     * Sets the generation of the key signing the {@link LocaleCookie}.
+     * Cookies signed with an older generation than the previous one are ignored.
+     * @param cookieKeyGeneration the key generation
+     */
+    public void setCookieKeyGeneration(int cookieKeyGeneration) {
+        this.cookieKeyGeneration = Math.max(0, cookieKeyGeneration);
+        publish();
+    }
+
+    /**
+     * Sets whether responses should tell caches in front of Jenkins how they depend on the language.
+     * @param cacheHeaders If {@code true}, send {@code Content-Language}, and {@code Vary} or
+     *      {@code Cache-Control: private} according to how the language was detected
+     */
+    public void setCacheHeaders(boolean cacheHeaders) {
+        this.cacheHeaders = cacheHeaders;
+        publish();
+    }
+
+    /**
+     * Sets whether the language should be part of the {@code ETag} of responses.
+     * @param localeETags If {@code true}, append the detected language to the {@code ETag} of responses,
+     *      so that every language has its own
+     */
+    public void setLocaleETags(boolean localeETags) {
+        this.localeETags = localeETags;
+        publish();
+    }
+
+    /**
+     * Sets whether resource bundles should be loaded in the background when the default language changes.
+     * @param warmBundles If {@code true}, start a {@link BundleWarmer} whenever the default language changes
+     */
+    public void setWarmBundles(boolean warmBundles) {
+        this.warmBundles = warmBundles;
+        publish();
+    }
+
+    /**
+     * Sets the languages forced on all pages under a path, whatever the browser or user preference.
+     * @param pathRules the rules, the one with the longest matching path wins
+     */
+    public void setPathRules(List<PathLocaleRule> pathRules) {
+        this.pathRules = pathRules == null || pathRules.isEmpty() ? null : new ArrayList<>(pathRules);
+        publish();
+    }
+
+    private List<String> toBypassPaths(String bypassPaths) {
+        if (bypassPaths == null) {
+            return DEFAULT_BYPASS_PATHS;
+        }
+        return toLines(bypassPaths);
+    }
+
+    private static List<String> toLines(String value) {
+        if (value == null) {
+            return List.of();
+        }
+        return value.lines().map(String::trim).filter(line -> !line.isEmpty()).toList();
+    }
+
+    private Locale toDefaultLocale(String systemLocale) {
+        if (systemLocale == null || USE_BROWSER_LOCALE.equals(systemLocale)) {
+            return originalLocale;
+        }
+        return parse(systemLocale);
+    }
+
+    private synchronized void publish() {
+        if (!binding) {
+            Settings settings = new Settings(
+                    systemLocale,
+                    toDefaultLocale(systemLocale),
+                    ignoreAcceptLanguage,
+                    allowUserPreferences,
+                    negotiateAcceptLanguage,
+                    toBypassPaths(bypassPaths),
+                    metricsEnabled,
+                    keepJvmDefaultLocale,
+                    localeCookie,
+                    toLines(resolverOrder),
+                    cookieKeyGeneration,
+                    cacheHeaders,
+                    localeETags,
+                    warmBundles,
+                    List.copyOf(getPathRules()));
+            Settings previous = this.settings;
+            this.settings = settings;
+            updateJvmDefaultLocale(settings);
+            updateFilter(settings);
+            if (filter != null
+                    && settings.warmBundles()
+                    && previous != null
+                    && !previous.defaultLocale().equals(settings.defaultLocale())) {
+                // not at startup, only when the default language changed
+                BundleWarmer.get().start(settings.defaultLocale());
+            }
+        }
+    }
+
+    /**
+     * Changing the default locale flushes locale sensitive caches of the JDK, so only do it when it changes.
+     */
+    private void updateJvmDefaultLocale(Settings settings) {
+        Locale jvmDefaultLocale = settings.keepJvmDefaultLocale() ? originalLocale : settings.defaultLocale();
+        if (!jvmDefaultLocale.equals(Locale.getDefault())) {
+            Locale.setDefault(jvmDefaultLocale);
+        }
+    }
+
+    /**
+     * Keeps {@link #filter} in the servlet filter chain only while it has something to do,
+     * so that it costs nothing when Jenkins just follows the browser preference.
+     */
+    private void updateFilter(Settings settings) {
+        if (filter == null) {
+            return; // not started yet
+        }
+        boolean required = filter.isRequired(settings);
+        try {
+            if (required && !filterInstalled) {
+                PluginServletFilter.addFilter(filter);
+                filterInstalled = true;
+            } else if (!required && filterInstalled) {
+                PluginServletFilter.removeFilter(filter);
+                filterInstalled = false;
+            }
+        } catch (ServletException e) {
+            LOGGER.log(Level.WARNING, "Unable to update the locale filter registration", e);
+        }
+    }
+
+    /**
+     * Immutable snapshot of the plugin configuration.
+     *
+     * @param systemLocale the configured default language, as returned by {@link #getSystemLocale()}
+     * @param defaultLocale the locale that {@code systemLocale} stands for
+     * @param ignoreAcceptLanguage see {@link #isIgnoreAcceptLanguage()}
+     * @param allowUserPreferences see {@link #isAllowUserPreferences()}
+     * @param negotiateAcceptLanguage see {@link #isNegotiateAcceptLanguage()}
+     * @param bypassPaths the path prefixes of {@link #getBypassPaths()}
+     * @param metricsEnabled see {@link #isMetricsEnabled()}
+     * @param keepJvmDefaultLocale see {@link #isKeepJvmDefaultLocale()}
+     * @param localeCookie see {@link #isLocaleCookie()}
+     * @param resolverOrder the resolver names of {@link #getResolverOrder()}, empty for the default order
+     * @param cookieKeyGeneration see {@link #getCookieKeyGeneration()}
+     * @param cacheHeaders see {@link #isCacheHeaders()}
+     * @param localeETags see {@link #isLocaleETags()}
+     * @param warmBundles see {@link #isWarmBundles()}
+     * @param pathRules see {@link #getPathRules()}
+     */
+    public record Settings(
+            String systemLocale,
+            Locale defaultLocale,
+            boolean ignoreAcceptLanguage,
+            boolean allowUserPreferences,
+            boolean negotiateAcceptLanguage,
+            List<String> bypassPaths,
+            boolean metricsEnabled,
+            boolean keepJvmDefaultLocale,
+            boolean localeCookie,
+            List<String> resolverOrder,
+            int cookieKeyGeneration,
+            boolean cacheHeaders,
+            boolean localeETags,
+            boolean warmBundles,
+            List<PathLocaleRule> pathRules) {}
+
     /**
      * Parses a string like "ja_JP" into a {@link Locale} object.
      *
      * @param s the locale string using underscores as delimiters
-     * @return the Locale object
+     * @return the Locale object, shared with every other caller parsing the same string
+     * @see LocaleRegistry
      */
     public static Locale parse(String s) {
-        // TODO: Migrate to Locale.of() once we upgrade to Java 21
-        String[] tokens = s.trim().split("_");
-        return switch (tokens.length) {
-            case 1 -> new Locale(tokens[0]);
-            case 2 -> new Locale(tokens[0], tokens[1]);
-            case 3 -> new Locale(tokens[0], tokens[1], tokens[2]);
-            default -> throw new IllegalArgumentException(s + " is not a valid locale");
-        };
+        return LocaleRegistry.parse(s);
     }
 
     @NonNull
@@ -185,24 +589,47 @@ public class PluginImpl extends GlobalConfiguration {
      */
     @RequirePOST
     public ListBoxModel doFillSystemLocaleItems() {
-        ListBoxModel items = new ListBoxModel();
-
         // Use originalLocale to display the "Use Default Locale" option
-        String originalLocaleDisplay =
-                String.format("Use Default Locale - %s (%s)", originalLocale.getDisplayName(), originalLocale);
-        items.add(new ListBoxModel.Option(originalLocaleDisplay, USE_BROWSER_LOCALE));
-
-        Locale[] availableLocales = Locale.getAvailableLocales();
-        List<Locale> sortedLocales = Arrays.stream(availableLocales)
-                .filter(locale -> ALLOWED_LOCALES.contains(locale.toString())) // Ensure no empty or null locale strings
-                .sorted(Comparator.comparing(Locale::getDisplayName))
-                .toList();
-
-        for (Locale locale : sortedLocales) {
-            String displayText = String.format("%s - %s", locale.getDisplayName(), locale);
-            items.add(new ListBoxModel.Option(displayText, locale.toString()));
+        return LocaleOptions.build(originalLocale);
+    }
+
+    /**
+     * Rotates the key signing the {@link LocaleCookie}. Cookies signed with the previous key remain valid
+     * until the next rotation.
+     *
+     * @return a confirmation for the configuration page
+     */
+    @RequirePOST
+    public FormValidation doRotateCookieKey() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        synchronized (this) {
+            cookieKeyGeneration++;
+            publish();
+            save();
         }
+        LocaleCookie.clearVerified();
+        return FormValidation.ok(Messages.PluginImpl_CookieKeyRotated());
+    }
+
+    /**
+     * Serves the {@link TranslationCoverage} of each of {@link #ALLOWED_LOCALES} as JSON.
+     *
+     * @return the coverage
+     */
+    @GET
+    public HttpResponse doCoverage() {
+        Jenkins.get().checkPermission(Jenkins.SYSTEM_READ);
+        return HttpResponses.okJSON(TranslationCoverage.get().toJSONObject());
+    }
 
-        return items;
+    /**
+     * Serves the {@link LocaleMetrics} as JSON, also available through JMX.
+     *
+     * @return the metrics
+     */
+    @GET
+    public HttpResponse doMetrics() {
+        Jenkins.get().checkPermission(Jenkins.SYSTEM_READ);
+        return HttpResponses.okJSON(LocaleMetrics.get().toJSONObject());
     }
 }
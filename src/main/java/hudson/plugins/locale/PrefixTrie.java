@@ -0,0 +1,144 @@
+package hudson.plugins.locale;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable character trie mapping string prefixes to values.
+ * Matching walks the input once, so its cost depends on the length of the input
+ * and not on the number of prefixes.
+ *
+ * @param <V> the type of the values
+ */
+final class PrefixTrie<V> {
+
+    private static final PrefixTrie<?> EMPTY = new PrefixTrie<>(new Node<>());
+
+    private final Node<V> root;
+
+    private PrefixTrie(Node<V> root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> PrefixTrie<V> empty() {
+        return (PrefixTrie<V>) EMPTY;
+    }
+
+    /**
+     * Compiles a trie.
+     *
+     * @param prefixes the prefixes and their values, empty prefixes are ignored
+     * @return the trie
+     */
+    @NonNull
+    static <V> PrefixTrie<V> compile(@NonNull Map<String, V> prefixes) {
+        if (prefixes.isEmpty()) {
+            return empty();
+        }
+        Node<V> root = new Node<>();
+        for (Map.Entry<String, V> entry : prefixes.entrySet()) {
+            String prefix = entry.getKey();
+            if (prefix.isEmpty()) {
+                continue;
+            }
+            Node<V> node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.getOrAddChild(prefix.charAt(i));
+            }
+            node.value = entry.getValue();
+        }
+        return new PrefixTrie<>(root);
+    }
+
+    boolean isEmpty() {
+        return root.keys.length == 0;
+    }
+
+    /**
+     * Finds the value of the longest prefix of {@code s}, starting at {@code from}.
+     *
+     * @param s the string to match
+     * @param from the index to start matching at
+     * @return the value of the longest matching prefix, or {@code null} if no prefix matches
+     */
+    @CheckForNull
+    V longestMatch(@NonNull String s, int from) {
+        return match(s, from, false);
+    }
+
+    /**
+     * Finds the value of the shortest prefix of {@code s}, starting at {@code from}.
+     * Cheaper than {@link #longestMatch} when any match will do.
+     *
+     * @param s the string to match
+     * @param from the index to start matching at
+     * @return the value of the shortest matching prefix, or {@code null} if no prefix matches
+     */
+    @CheckForNull
+    V firstMatch(@NonNull String s, int from) {
+        return match(s, from, true);
+    }
+
+    private V match(String s, int from, boolean first) {
+        V match = null;
+        Node<V> node = root;
+        for (int i = from; i < s.length(); i++) {
+            node = node.getChild(s.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.value != null) {
+                match = node.value;
+                if (first) {
+                    break;
+                }
+            }
+        }
+        return match;
+    }
+
+    private static final class Node<V> {
+        private static final char[] NO_KEYS = new char[0];
+
+        /**
+         * Sorted, so that children can be found by binary search.
+         */
+        private char[] keys = NO_KEYS;
+
+        private Node<V>[] children = newArray(0);
+        private V value;
+
+        Node<V> getChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index < 0 ? null : children[index];
+        }
+
+        Node<V> getOrAddChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insert = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node<V>[] newChildren = newArray(children.length + 1);
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            Node<V> child = new Node<>();
+            newKeys[insert] = c;
+            newChildren[insert] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> Node<V>[] newArray(int size) {
+            return (Node<V>[]) new Node<?>[size];
+        }
+    }
+}
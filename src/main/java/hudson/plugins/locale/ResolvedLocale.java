@@ -0,0 +1,91 @@
+package hudson.plugins.locale;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A {@link Locale} together with everything {@link LocaleFilter} derives from it for each request,
+ * computed once per distinct locale.
+ */
+final class ResolvedLocale {
+
+    /**
+     * Upper bound on the number of distinct locales we keep, user supplied locale codes are not validated.
+     */
+    private static final int MAX_SIZE = 256;
+
+    private static final BoundedCache<Locale, ResolvedLocale> CACHE = new BoundedCache<>(MAX_SIZE);
+
+    private final Locale locale;
+    private final String header;
+    private final String languageTag;
+    private final String eTagSuffix;
+    private final List<Locale> locales;
+
+    private ResolvedLocale(Locale locale) {
+        this.locale = locale;
+        this.header = locale.toString();
+        this.languageTag = locale.toLanguageTag();
+        this.eTagSuffix = "-" + languageTag;
+        this.locales = List.of(locale);
+    }
+
+    /**
+     * Returns the shared instance for the given locale.
+     *
+     * @param locale the locale
+     * @return the resolved locale
+     */
+    @NonNull
+    static ResolvedLocale of(@NonNull Locale locale) {
+        return CACHE.computeIfAbsent(locale, ResolvedLocale::new);
+    }
+
+    @NonNull
+    Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * @return the value of the {@code X-Jenkins-Language} response header
+     */
+    @NonNull
+    String getHeader() {
+        return header;
+    }
+
+    /**
+     * @return the value of the {@code Content-Language} response header, like {@code pt-BR}
+     */
+    @NonNull
+    String getLanguageTag() {
+        return languageTag;
+    }
+
+    /**
+     * @return what {@link LocaleFilter.LocaleResponse} appends to entity tags, like {@code -pt-BR}
+     */
+    @NonNull
+    String getETagSuffix() {
+        return eTagSuffix;
+    }
+
+    /**
+     * Enumerates this locale only. {@link Enumeration} is stateful so every call needs its own cursor,
+     * but the backing list is shared.
+     *
+     * @return an enumeration over this locale
+     */
+    @NonNull
+    Enumeration<Locale> getLocales() {
+        return Collections.enumeration(locales);
+    }
+
+    @Override
+    public String toString() {
+        return header;
+    }
+}
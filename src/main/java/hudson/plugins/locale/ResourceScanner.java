@@ -0,0 +1,100 @@
+package hudson.plugins.locale;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.PluginWrapper;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import jenkins.model.Jenkins;
+
+/**
+ * Lists the resources of Jenkins core and of plugins, by reading their jars and class directories
+ * rather than asking class loaders, which cannot enumerate.
+ */
+final class ResourceScanner {
+
+    private static final Logger LOGGER = Logger.getLogger(ResourceScanner.class.getName());
+
+    private ResourceScanner() {}
+
+    /**
+     * @param plugin a plugin
+     * @return the jars and class directories of the plugin
+     */
+    @NonNull
+    static List<File> locations(@NonNull PluginWrapper plugin) {
+        List<File> locations = new ArrayList<>();
+        if (plugin.classLoader instanceof URLClassLoader loader) {
+            for (URL url : loader.getURLs()) {
+                addLocation(locations, url);
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * @return the jar of Jenkins core
+     */
+    @NonNull
+    static List<File> coreLocations() {
+        List<File> locations = new ArrayList<>();
+        CodeSource source = Jenkins.class.getProtectionDomain().getCodeSource();
+        if (source != null) {
+            addLocation(locations, source.getLocation());
+        }
+        return locations;
+    }
+
+    /**
+     * Calls {@code action} with the name of each entry of a jar or class directory,
+     * like {@code hudson/Messages.properties}.
+     *
+     * @param location a jar or a directory
+     * @param action what to do with each entry name
+     * @throws IOException if the location cannot be read
+     */
+    static void forEachEntry(@NonNull File location, @NonNull Consumer<String> action) throws IOException {
+        if (location.isDirectory()) {
+            Path root = location.toPath();
+            try (Stream<Path> files = Files.walk(root)) {
+                files.filter(Files::isRegularFile)
+                        .forEach(file -> action.accept(
+                                root.relativize(file).toString().replace(File.separatorChar, '/')));
+            }
+        } else if (location.isFile()) {
+            try (JarFile jar = new JarFile(location)) {
+                for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+                    JarEntry entry = entries.nextElement();
+                    if (!entry.isDirectory()) {
+                        action.accept(entry.getName());
+                    }
+                }
+            }
+        }
+    }
+
+    private static void addLocation(List<File> locations, URL url) {
+        if (url == null || !"file".equals(url.getProtocol())) {
+            return;
+        }
+        try {
+            locations.add(new File(url.toURI()));
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            LOGGER.log(Level.FINE, e, () -> "Ignoring " + url);
+        }
+    }
+}
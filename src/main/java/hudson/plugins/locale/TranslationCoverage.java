@@ -0,0 +1,301 @@
+package hudson.plugins.locale;
+
+import com.thoughtworks.xstream.XStream;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.PluginWrapper;
+import hudson.XmlFile;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.util.XStream2;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+import net.sf.json.JSONObject;
+
+/**
+ * How much of Jenkins core and of the installed plugins is translated to each of
+ * {@link PluginImpl#ALLOWED_LOCALES}.
+ * <p>
+ * Coverage is the share of {@code Messages} bundles and resources of Jelly views alike that have a
+ * translation to the locale. Other {@code .properties} files, like {@code META-INF/maven/.../pom.properties},
+ * are not counted. The index is kept in {@code $JENKINS_HOME/locale-coverage.xml} per plugin name and
+ * version, so only plugins that were installed or updated since are scanned again.
+ */
+public final class TranslationCoverage {
+
+    private static final Logger LOGGER = Logger.getLogger(TranslationCoverage.class.getName());
+
+    /**
+     * Key of Jenkins core in {@link #plugins}.
+     */
+    static final String CORE = "jenkins-core";
+
+    /**
+     * Version of what is counted, indexes of other versions are rebuilt.
+     */
+    private static final int FORMAT = 1;
+
+    private static final XStream XSTREAM = new XStream2();
+
+    static {
+        XSTREAM.alias("translationCoverage", TranslationCoverage.class);
+        XSTREAM.alias("plugin", PluginCoverage.class);
+    }
+
+    private static volatile TranslationCoverage current = new TranslationCoverage(Map.of());
+
+    private final Map<String, PluginCoverage> plugins;
+
+    /**
+     * {@link #FORMAT} of this index, 0 for indexes counting every {@code .properties} file.
+     */
+    private final int format;
+
+    /**
+     * Number of plugins scanned to build this index, the others were reused from the persisted one.
+     */
+    private transient int scanned;
+
+    private TranslationCoverage(Map<String, PluginCoverage> plugins) {
+        this.plugins = plugins;
+        this.format = FORMAT;
+    }
+
+    /**
+     * @return the latest index, empty until {@link #update()} completed
+     */
+    @NonNull
+    public static TranslationCoverage get() {
+        return current;
+    }
+
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void init() {
+        // do not delay startup, the index is only informative
+        Timer.get().submit(TranslationCoverage::update);
+    }
+
+    /**
+     * Brings the index up to date with the installed plugins, and persists it if anything changed.
+     *
+     * @return the updated index
+     */
+    @NonNull
+    public static synchronized TranslationCoverage update() {
+        XmlFile file = getFile();
+        TranslationCoverage stored = load(file);
+        Map<String, PluginCoverage> plugins = new TreeMap<>();
+        int scanned = 0;
+        if (refresh(plugins, stored, CORE, Jenkins.VERSION, ResourceScanner::coreLocations)) {
+            scanned++;
+        }
+        for (PluginWrapper plugin : Jenkins.get().getPluginManager().getPlugins()) {
+            if (plugin.isActive()
+                    && refresh(
+                            plugins,
+                            stored,
+                            plugin.getShortName(),
+                            plugin.getVersion(),
+                            () -> ResourceScanner.locations(plugin))) {
+                scanned++;
+            }
+        }
+
+        TranslationCoverage coverage = new TranslationCoverage(plugins);
+        coverage.scanned = scanned;
+        if (scanned > 0 || !plugins.keySet().equals(stored.plugins.keySet())) {
+            try {
+                file.write(coverage);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Unable to save " + file, e);
+            }
+        }
+        current = coverage;
+        LOGGER.log(Level.FINE, "Translation coverage updated, {0} of {1} scanned", new Object[] {
+            scanned, plugins.size()
+        });
+        return coverage;
+    }
+
+    /**
+     * @param code one of {@link PluginImpl#ALLOWED_LOCALES}
+     * @return the share of resources translated to the locale, between 0 and 1, or -1 if nothing is known yet
+     */
+    public double getCoverage(@NonNull String code) {
+        long bundles = 0;
+        long translated = 0;
+        for (PluginCoverage plugin : plugins.values()) {
+            bundles += plugin.bundles;
+            translated += plugin.translated.getOrDefault(code, 0);
+        }
+        return bundles == 0 ? -1 : Math.min(1.0, (double) translated / bundles);
+    }
+
+    /**
+     * @return the number of plugins scanned to build this index, rather than read from disk
+     */
+    int getScannedCount() {
+        return scanned;
+    }
+
+    /**
+     * @return the coverage of each locale, and how many plugins are indexed
+     */
+    @NonNull
+    public JSONObject toJSONObject() {
+        JSONObject locales = new JSONObject();
+        for (String code : new TreeSet<>(PluginImpl.ALLOWED_LOCALES)) {
+            locales.element(code, Math.round(getCoverage(code) * 1000) / 1000.0);
+        }
+        return new JSONObject().element("plugins", plugins.size()).element("locales", locales);
+    }
+
+    /**
+     * @param base the name of a resource without {@code .properties}, like {@code hudson/Messages_pt_BR}
+     * @return the code of the locale the resource is a translation to, like {@code pt_BR},
+     *      or {@code null} for the base resource
+     */
+    @CheckForNull
+    static String localeSuffix(@NonNull String base) {
+        int last = base.lastIndexOf('_');
+        if (last < 0) {
+            return null;
+        }
+        String tail = base.substring(last + 1);
+        if (isCountry(tail)) {
+            int previous = base.lastIndexOf('_', last - 1);
+            if (previous >= 0 && isLanguage(base.substring(previous + 1, last))) {
+                return base.substring(previous + 1);
+            }
+            return null;
+        }
+        return isLanguage(tail) ? tail : null;
+    }
+
+    /**
+     * @param base the name of a resource without {@code .properties} nor locale suffix, like {@code hudson/Messages}
+     * @param views the names of the Jelly views, without {@code .jelly}, like {@code hudson/model/View/index}
+     * @return whether the resource holds text to translate, that is whether it is a {@code Messages} bundle
+     *      or the resources of a view
+     */
+    static boolean isLocalizable(@NonNull String base, @NonNull Set<String> views) {
+        return base.equals("Messages") || base.endsWith("/Messages") || views.contains(base);
+    }
+
+    private static boolean isLanguage(String s) {
+        return (s.length() == 2 || s.length() == 3) && s.chars().allMatch(c -> c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isCountry(String s) {
+        return s.length() == 2 && s.chars().allMatch(c -> c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Reuses the stored coverage of a plugin if its version did not change, scans it otherwise.
+     *
+     * @return whether the plugin was scanned
+     */
+    private static boolean refresh(
+            Map<String, PluginCoverage> plugins,
+            TranslationCoverage stored,
+            String name,
+            String version,
+            Supplier<List<File>> locations) {
+        PluginCoverage known = stored.plugins.get(name);
+        if (known != null && version.equals(known.version)) {
+            plugins.put(name, known);
+            return false;
+        }
+        plugins.put(name, scan(version, locations.get()));
+        return true;
+    }
+
+    private static PluginCoverage scan(String version, List<File> locations) {
+        Set<String> views = new HashSet<>();
+        List<String> resources = new ArrayList<>();
+        for (File location : locations) {
+            try {
+                ResourceScanner.forEachEntry(location, name -> {
+                    if (name.endsWith(".jelly")) {
+                        views.add(name.substring(0, name.length() - ".jelly".length()));
+                    } else if (name.endsWith(".properties")) {
+                        resources.add(name.substring(0, name.length() - ".properties".length()));
+                    }
+                });
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, e, () -> "Unable to scan " + location);
+            }
+        }
+
+        int bundles = 0;
+        Map<String, Integer> translated = new HashMap<>();
+        for (String resource : resources) {
+            String code = localeSuffix(resource);
+            String base = code == null ? resource : resource.substring(0, resource.length() - code.length() - 1);
+            if (!isLocalizable(base, views)) {
+                continue;
+            }
+            if (code == null) {
+                bundles++;
+            } else if (LocaleRegistry.isAllowed(code)) {
+                translated.merge(code, 1, Integer::sum);
+            }
+        }
+        return new PluginCoverage(version, bundles, new TreeMap<>(translated));
+    }
+
+    private static TranslationCoverage load(XmlFile file) {
+        if (file.exists()) {
+            try {
+                if (file.read() instanceof TranslationCoverage coverage
+                        && coverage.plugins != null
+                        && coverage.format == FORMAT) {
+                    return coverage;
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Unable to read " + file + ", rebuilding it", e);
+            }
+        }
+        return new TranslationCoverage(Map.of());
+    }
+
+    private static XmlFile getFile() {
+        return new XmlFile(XSTREAM, new File(Jenkins.get().getRootDir(), "locale-coverage.xml"));
+    }
+
+    /**
+     * Coverage of one plugin version.
+     */
+    static final class PluginCoverage {
+        private final String version;
+
+        /**
+         * Number of untranslated resources.
+         */
+        private final int bundles;
+
+        /**
+         * Number of translated resources, per locale code.
+         */
+        private final Map<String, Integer> translated;
+
+        PluginCoverage(String version, int bundles, Map<String, Integer> translated) {
+            this.version = version;
+            this.bundles = bundles;
+            this.translated = translated;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package hudson.plugins.locale;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.XmlFile;
+import hudson.model.Saveable;
+import hudson.model.User;
+import hudson.model.listeners.SaveableListener;
+import hudson.plugins.locale.user.UserLocaleProperty;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import jenkins.util.SystemProperties;
+
+/**
+ * Bounded cache of the {@link Locale} each user selected through {@link UserLocaleProperty},
+ * so that {@link LocaleFilter} does not have to look the user up on every request.
+ * <p>
+ * Entries are keyed by user id, normalized through {@link User#idStrategy()}, evicted when their user is not seen
+ * for a while, and dropped whenever the user is saved or deleted, or when the {@link UserLocaleProperty} of the user
+ * changes.
+ */
+@Extension
+public final class UserLocaleCache {
+
+    /**
+     * Maximum number of users kept in the cache.
+     */
+    static final int MAX_SIZE = SystemProperties.getInteger(UserLocaleCache.class.getName() + ".maxSize", 10_000);
+
+    private final BoundedCache<String, Optional<Locale>> entries;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public UserLocaleCache() {
+        this(MAX_SIZE);
+    }
+
+    UserLocaleCache(int maxSize) {
+        this.entries = new BoundedCache<>(maxSize);
+    }
+
+    public static UserLocaleCache get() {
+        return ExtensionList.lookupSingleton(UserLocaleCache.class);
+    }
+
+    /**
+     * Returns the cached locale of the given user, computing it with {@code loader} on a miss.
+     *
+     * @param userId the id of the user
+     * @param loader computes the locale of the user, may return {@code null}
+     * @return the locale of the user, or {@code null} if the user has no usable preference
+     */
+    @CheckForNull
+    public Locale get(@NonNull String userId, @NonNull Supplier<Locale> loader) {
+        String key = keyFor(userId);
+        Optional<Locale> cached = entries.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached.orElse(null);
+        }
+        misses.increment();
+        long stamp = invalidations.get();
+        Locale locale = loader.get();
+        entries.put(key, Optional.ofNullable(locale));
+        if (stamp != invalidations.get()) {
+            // the user changed while we were loading it, do not keep a possibly stale value
+            entries.remove(key);
+        }
+        return locale;
+    }
+
+    /**
+     * Drops the cached locale of the given user.
+     *
+     * @param userId the id of the user
+     */
+    public void invalidate(@NonNull String userId) {
+        invalidations.incrementAndGet();
+        entries.remove(keyFor(userId));
+    }
+
+    /**
+     * Drops all cached locales.
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * @param limit the maximum number of locales to return
+     * @return the locales of the cached users, most used first
+     */
+    @NonNull
+    public List<Locale> mostUsed(int limit) {
+        Map<Locale, Integer> counts = new HashMap<>();
+        entries.forEachValue(locale -> locale.ifPresent(l -> counts.merge(l, 1, Integer::sum)));
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<Locale, Integer>comparingByValue().reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "UserLocaleCache[size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + "]";
+    }
+
+    private static String keyFor(String userId) {
+        return User.idStrategy().keyFor(userId);
+    }
+
+    /**
+     * Invalidates cached entries when a user is saved, which includes any change to its
+     * {@link UserLocaleProperty} made through the user configuration form, or deleted.
+     */
+    @Extension
+    public static final class UserSaveableListener extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof User user) {
+                get().invalidate(user.getId());
+            }
+        }
+
+        @Override
+        public void onDeleted(Saveable o, XmlFile file) {
+            if (o instanceof User user) {
+                get().invalidate(user.getId());
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package hudson.plugins.locale.user;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Util;
+import hudson.model.User;
+import hudson.plugins.locale.LocaleRegistry;
+import hudson.plugins.locale.PluginImpl;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import net.sf.json.JSONObject;
+
+/**
+ * Counts the {@link UserLocaleProperty} values of all users, and optionally assigns a language to some of them.
+ * <p>
+ * Users are gone through one at a time. Only the counts are kept, but the users themselves are listed through
+ * {@link User#getAll()}, the only public way to enumerate them, which loads all of them into the user cache of
+ * Jenkins. The users changed are saved by {@link UserLocaleSaver}, every few seconds while going through them, and
+ * the remaining ones before {@link #run()} returns. Codes that are neither {@link PluginImpl#USE_BROWSER_LOCALE} nor
+ * a locale, such as hand edited ones, are counted separately as invalid.
+ */
+public final class UserLocaleAudit {
+
+    private static final Logger LOGGER = Logger.getLogger(UserLocaleAudit.class.getName());
+
+    @CheckForNull
+    private final Pattern users;
+
+    @CheckForNull
+    private final String from;
+
+    @CheckForNull
+    private final String assign;
+
+    private int total;
+    private int matched;
+    private int changed;
+    private int failed;
+    private Map<String, Long> locales;
+    private Map<String, Long> invalid;
+    /**
+     * The number of users gone through so far by {@link #run()}, read by other threads.
+     */
+    private volatile int progress;
+
+    /**
+     * @param users only users whose ID matches, or {@code null} for all users
+     * @param from only users whose language code is this, {@link PluginImpl#USE_BROWSER_LOCALE} for users without
+     *      one, or {@code null} for any code
+     * @param assign the language code to assign to the selected users, {@link PluginImpl#USE_BROWSER_LOCALE}
+     *      to clear it, or {@code null} to only count
+     * @throws IllegalArgumentException if {@code assign} is not a supported language
+     */
+    public UserLocaleAudit(@CheckForNull Pattern users, @CheckForNull String from, @CheckForNull String assign) {
+        if (assign != null && !PluginImpl.USE_BROWSER_LOCALE.equals(assign) && !LocaleRegistry.isAllowed(assign)) {
+            throw new IllegalArgumentException("Unsupported locale: " + assign);
+        }
+        this.users = users;
+        this.from = from;
+        this.assign = assign;
+    }
+
+    /**
+     * Parses the parameters of an audit, as entered in forms.
+     *
+     * @param users a regular expression the IDs of the users must match, or empty for all users
+     * @param from only users with this language code, or empty for any code
+     * @param assign the language code to assign to the selected users, or {@code null} to only count
+     * @return the audit
+     * @throws IllegalArgumentException if {@code users} is not a valid regular expression,
+     *      or {@code assign} is not a supported language
+     */
+    @NonNull
+    static UserLocaleAudit parse(@CheckForNull String users, @CheckForNull String from, @CheckForNull String assign) {
+        String regex = Util.fixEmpty(users);
+        return new UserLocaleAudit(regex == null ? null : Pattern.compile(regex), Util.fixEmptyAndTrim(from), assign);
+    }
+
+    /**
+     * @return the language code assigned to the selected users, or {@code null} if only counting
+     */
+    @CheckForNull
+    public String getAssign() {
+        return assign;
+    }
+
+    /**
+     * @return the number of users gone through so far by the current or last {@link #run()}
+     */
+    public int getProgress() {
+        return progress;
+    }
+
+    /**
+     * Goes through all users.
+     *
+     * @return the counts, taken before any assignment
+     * @throws InterruptedException if interrupted, users changed until then stay changed
+     */
+    @NonNull
+    public synchronized Result run() throws InterruptedException {
+        long start = System.nanoTime();
+        total = 0;
+        matched = 0;
+        changed = 0;
+        failed = 0;
+        locales = new TreeMap<>();
+        invalid = new TreeMap<>();
+        progress = 0;
+        try {
+            for (User user : User.getAll()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                process(user);
+                progress = total;
+            }
+        } finally {
+            if (changed > 0) {
+                failed += UserLocaleSaver.get().flush();
+            }
+        }
+        Result result = new Result(
+                total,
+                matched,
+                changed,
+                failed,
+                locales,
+                invalid,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        LOGGER.log(Level.FINE, "Audited {0} users, changed {1}, in {2} ms", new Object[] {
+            result.users(), result.changed(), result.elapsedMillis()
+        });
+        return result;
+    }
+
+    private void process(User user) {
+        total++;
+        if (users != null && !users.matcher(user.getId()).matches()) {
+            return;
+        }
+        UserLocaleProperty property = user.getProperty(UserLocaleProperty.class);
+        // captured codes are not applied, so count them as following the browser
+        String code = property == null || property.isCaptured() ? null : property.getLocaleCode();
+        if (code == null) {
+            code = PluginImpl.USE_BROWSER_LOCALE;
+        }
+        if (from != null && !from.equals(code)) {
+            return;
+        }
+        matched++;
+        boolean unparsable =
+                property != null && property.getLocale() == null && !PluginImpl.USE_BROWSER_LOCALE.equals(code);
+        (unparsable ? invalid : locales).merge(code, 1L, Long::sum);
+        if (assign == null || assign.equals(code)) {
+            return;
+        }
+        try {
+            if (property == null) {
+                user.addProperty(new UserLocaleProperty(assign));
+            } else {
+                property.setLocaleCode(assign);
+                UserLocaleSaver.get().schedule(user);
+            }
+            changed++;
+        } catch (IOException | RuntimeException e) {
+            failed++;
+            LOGGER.log(Level.WARNING, e, () -> "Unable to change the language of " + user.getId());
+        }
+    }
+
+    /**
+     * Outcome of an audit.
+     *
+     * @param users the number of users gone through
+     * @param matched the number of users selected by the filters
+     * @param changed the number of users whose language was changed
+     * @param failed the number of users whose language could not be changed, or who could not be saved
+     * @param locales the number of selected users per valid language code, including
+     *      {@link PluginImpl#USE_BROWSER_LOCALE}
+     * @param invalid the number of selected users per invalid language code
+     * @param elapsedMillis how long the audit took
+     */
+    public record Result(
+            int users,
+            int matched,
+            int changed,
+            int failed,
+            Map<String, Long> locales,
+            Map<String, Long> invalid,
+            long elapsedMillis) {
+
+        @NonNull
+        public JSONObject toJSONObject() {
+            return new JSONObject()
+                    .element("users", users)
+                    .element("matched", matched)
+                    .element("changed", changed)
+                    .element("failed", failed)
+                    .element("locales", locales)
+                    .element("invalid", invalid)
+                    .element("elapsedMillis", elapsedMillis);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package hudson.plugins.locale.user;
+
+import hudson.Extension;
+import hudson.cli.CLICommand;
+import hudson.plugins.locale.Messages;
+import hudson.plugins.locale.PluginImpl;
+import java.util.Map;
+import java.util.regex.Pattern;
+import jenkins.model.Jenkins;
+import org.kohsuke.args4j.Option;
+
+/**
+ * Counts the languages of users, and optionally assigns or clears the language of some of them,
+ * through {@link UserLocaleAudit}.
+ */
+@Extension
+public class UserLocaleCommand extends CLICommand {
+
+    @Option(name = "--users", metaVar = "REGEX", usage = "Only users whose ID matches this regular expression")
+    public String users;
+
+    @Option(name = "--from", metaVar = "CODE", usage = "Only users with this language code")
+    public String from;
+
+    @Option(
+            name = "--assign",
+            metaVar = "CODE",
+            forbids = "--clear",
+            usage = "Assign this language to the selected users")
+    public String assign;
+
+    @Option(name = "--clear", forbids = "--assign", usage = "Clear the language of the selected users")
+    public boolean clear;
+
+    @Option(name = "--json", usage = "Print the result as JSON")
+    public boolean json;
+
+    @Override
+    public String getShortDescription() {
+        return Messages.UserLocaleCommand_ShortDescription();
+    }
+
+    @Override
+    protected int run() throws Exception {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        UserLocaleAudit.Result result = new UserLocaleAudit(
+                        users == null ? null : Pattern.compile(users),
+                        from,
+                        clear ? PluginImpl.USE_BROWSER_LOCALE : assign)
+                .run();
+        if (json) {
+            stdout.println(result.toJSONObject().toString(2));
+            return 0;
+        }
+        for (Map.Entry<String, Long> locale : result.locales().entrySet()) {
+            stdout.println(locale.getKey() + "\t" + locale.getValue());
+        }
+        for (Map.Entry<String, Long> locale : result.invalid().entrySet()) {
+            stdout.println(locale.getKey() + "\t" + locale.getValue() + "\t(invalid)");
+        }
+        stdout.printf(
+                "%d of %d users selected, %d changed, %d failed, in %d ms%n",
+                result.matched(), result.users(), result.changed(), result.failed(), result.elapsedMillis());
+        return result.failed() == 0 ? 0 : 1;
+    }
+}
@@ -0,0 +1,260 @@
+package hudson.plugins.locale.user;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.Util;
+import hudson.model.ManagementLink;
+import hudson.plugins.locale.Messages;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.security.Permission;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+/**
+ * Page of the Jenkins management area counting the languages of users, and assigning a language to some of them.
+ * <p>
+ * Users are gone through by a {@link UserLocaleAudit} in the background, one audit at a time, and the page shows
+ * its progress until it finishes. {@link UserLocaleProperty.DescriptorImpl#doAssign(String, String, String)}
+ * starts its assignments here too.
+ */
+@Extension
+public final class UserLocaleManagement extends ManagementLink {
+
+    private static final Logger LOGGER = Logger.getLogger(UserLocaleManagement.class.getName());
+
+    private final ThreadPoolExecutor executor = newExecutor();
+
+    @CheckForNull
+    private volatile Task task;
+
+    public static UserLocaleManagement get() {
+        return ExtensionList.lookupSingleton(UserLocaleManagement.class);
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "symbol-people";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.UserLocaleManagement_DisplayName();
+    }
+
+    @Override
+    public String getDescription() {
+        return Messages.UserLocaleManagement_Description();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "userLocales";
+    }
+
+    @NonNull
+    @Override
+    public Permission getRequiredPermission() {
+        return Jenkins.ADMINISTER;
+    }
+
+    @NonNull
+    @Override
+    public Category getCategory() {
+        return Category.SECURITY;
+    }
+
+    /**
+     * Starts going through users in the background.
+     *
+     * @param audit the audit to run
+     * @return the started task
+     * @throws IllegalStateException if another audit is still running
+     */
+    @NonNull
+    public synchronized Task start(@NonNull UserLocaleAudit audit) {
+        Task previous = task;
+        if (previous != null && previous.isRunning()) {
+            throw new IllegalStateException("The languages of users are already being audited");
+        }
+        Task started = new Task(audit, executor.submit(() -> {
+            try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+                return audit.run();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Unable to audit the languages of users", e);
+                throw e;
+            }
+        }));
+        task = started;
+        return started;
+    }
+
+    /**
+     * @return the running or last audit, or {@code null} if there was none
+     */
+    @CheckForNull
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * Counts the languages of users in the background, from the form of the page.
+     *
+     * @param users a regular expression the IDs of the users to count must match, or empty for all users
+     * @param from only count users with this language code, or empty for any code
+     * @return a redirect to the page
+     */
+    @RequirePOST
+    public HttpResponse doAudit(@QueryParameter String users, @QueryParameter String from) {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        return startFromForm(users, from, null);
+    }
+
+    /**
+     * Assigns a language to users in the background, from the form of the page.
+     *
+     * @param users a regular expression the IDs of the users to change must match, or empty for all users
+     * @param from only change users with this language code, or empty for any code
+     * @param localeCode the language code to assign
+     * @return a redirect to the page
+     */
+    @RequirePOST
+    public HttpResponse doAssign(
+            @QueryParameter String users, @QueryParameter String from, @QueryParameter String localeCode) {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        localeCode = Util.fixEmptyAndTrim(localeCode);
+        if (localeCode == null) {
+            return HttpResponses.errorWithoutStack(HttpServletResponse.SC_BAD_REQUEST, "Missing localeCode");
+        }
+        return startFromForm(users, from, localeCode);
+    }
+
+    private HttpResponse startFromForm(String users, String from, String assign) {
+        try {
+            start(UserLocaleAudit.parse(users, from, assign));
+        } catch (IllegalArgumentException e) {
+            return HttpResponses.errorWithoutStack(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            return HttpResponses.errorWithoutStack(HttpServletResponse.SC_CONFLICT, e.getMessage());
+        }
+        return HttpResponses.redirectToDot();
+    }
+
+    private static ThreadPoolExecutor newExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                1,
+                1,
+                10,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "User language audit"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * An audit running in the background.
+     */
+    public static final class Task {
+
+        private final UserLocaleAudit audit;
+        private final Future<UserLocaleAudit.Result> future;
+
+        Task(UserLocaleAudit audit, Future<UserLocaleAudit.Result> future) {
+            this.audit = audit;
+            this.future = future;
+        }
+
+        /**
+         * @return the language code assigned to the selected users, or {@code null} if only counting
+         */
+        @CheckForNull
+        public String getAssign() {
+            return audit.getAssign();
+        }
+
+        public boolean isRunning() {
+            return !future.isDone();
+        }
+
+        /**
+         * @return the number of users gone through so far
+         */
+        public int getProgress() {
+            return audit.getProgress();
+        }
+
+        /**
+         * @return whether the audit finished without a result, having been interrupted or having failed
+         */
+        public boolean isFailed() {
+            return future.isDone() && getResult() == null;
+        }
+
+        /**
+         * @return the result, or {@code null} while running or if the audit failed
+         */
+        @CheckForNull
+        public UserLocaleAudit.Result getResult() {
+            if (!future.isDone()) {
+                return null;
+            }
+            try {
+                return future.get();
+            } catch (ExecutionException | CancellationException e) {
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        /**
+         * Waits for the audit to finish.
+         *
+         * @param timeout how long to wait
+         * @param unit the unit of {@code timeout}
+         * @return the result
+         * @throws ExecutionException if the audit failed
+         * @throws InterruptedException if interrupted while waiting
+         * @throws TimeoutException if the audit did not finish in time
+         */
+        @NonNull
+        public UserLocaleAudit.Result await(long timeout, TimeUnit unit)
+                throws ExecutionException, InterruptedException, TimeoutException {
+            return future.get(timeout, unit);
+        }
+
+        @NonNull
+        public JSONObject toJSONObject() {
+            JSONObject json = new JSONObject()
+                    .element("assign", getAssign())
+                    .element("running", isRunning())
+                    .element("failed", isFailed())
+                    .element("progress", getProgress());
+            UserLocaleAudit.Result result = getResult();
+            if (result != null) {
+                json.element("result", result.toJSONObject());
+            }
+            return json;
+        }
+    }
+}
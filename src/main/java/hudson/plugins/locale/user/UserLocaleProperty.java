@@ -1,40 +1,68 @@
 package hudson.plugins.locale.user;
 
-import static hudson.plugins.locale.PluginImpl.ALLOWED_LOCALES;
-import static hudson.plugins.locale.PluginImpl.USE_BROWSER_LOCALE;
-
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
+import hudson.Util;
 import hudson.model.User;
 import hudson.model.UserProperty;
 import hudson.model.UserPropertyDescriptor;
 import hudson.model.userproperty.UserPropertyCategory;
+import hudson.plugins.locale.LocaleCookie;
+import hudson.plugins.locale.LocaleOptions;
+import hudson.plugins.locale.LocaleRegistry;
 import hudson.plugins.locale.Messages;
 import hudson.plugins.locale.PluginImpl;
+import hudson.plugins.locale.UserLocaleCache;
 import hudson.util.ListBoxModel;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.List;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.Locale;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import jenkins.model.Jenkins;
 import net.sf.json.JSONObject;
 import org.jenkinsci.Symbol;
 import org.jvnet.localizer.LocaleProvider;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.Stapler;
 import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
 import org.kohsuke.stapler.interceptor.RequirePOST;
+import org.kohsuke.stapler.verb.GET;
 
 public class UserLocaleProperty extends UserProperty {
     private static final Logger LOGGER = Logger.getLogger(UserLocaleProperty.class.getName());
 
+    /**
+     * Version of the persisted data written by this class.
+     */
+    private static final int VERSION = 1;
+
     private String localeCode;
-    private Locale locale;
+
+    /**
+     * Version of the persisted data, 0 for data written by older versions. Those stored the locale the user
+     * happened to have when the property was created as {@link #localeCode}, and only applied it once it was
+     * also persisted as {@link #locale}.
+     */
+    private int version;
+
+    /**
+     * Resolved from {@link #localeCode}, and shared with every other user of the same locale.
+     * Persisted by older versions, which is still read by {@link #readResolve()}.
+     */
+    private transient Locale locale;
 
     @DataBoundConstructor
     public UserLocaleProperty(String localeCode) {
         this.localeCode = localeCode;
+        this.locale = resolve(localeCode);
+        this.version = VERSION;
     }
 
     public Locale getLocale() {
@@ -45,14 +73,56 @@ public class UserLocaleProperty extends UserProperty {
         return localeCode;
     }
 
+    /**
+     * @return whether {@link #getLocaleCode()} was recorded by an older version when the property was created,
+     *      rather than chosen, in which case it is not applied and the browser preference is used
+     */
+    public boolean isCaptured() {
+        return version < VERSION;
+    }
+
     @DataBoundSetter
     public void setLocaleCode(String localeCode) {
+        locale = resolve(localeCode);
+        this.localeCode = localeCode;
+        version = VERSION;
+        if (user != null) {
+            UserLocaleCache.get().invalidate(user.getId());
+        }
+    }
+
+    private Object readResolve() {
+        if (version < VERSION) {
+            if (locale == null) {
+                // not applied by older versions either, keep following the browser until the user chooses
+                return this;
+            }
+            if (localeCode == null) {
+                // migrate data only holding the Locale
+                localeCode = locale.toString();
+            }
+            version = VERSION;
+        }
+        locale = resolve(localeCode);
+        return this;
+    }
+
+    /**
+     * Resolves a locale code to its canonical {@link Locale}.
+     *
+     * @return the locale, or {@code null} to follow the browser preference
+     */
+    @CheckForNull
+    private static Locale resolve(@CheckForNull String localeCode) {
+        if (localeCode == null || PluginImpl.USE_BROWSER_LOCALE.equals(localeCode)) {
+            return null;
+        }
         try {
-            locale = PluginImpl.parse(localeCode);
+            return PluginImpl.parse(localeCode);
         } catch (IllegalArgumentException ex) {
             LOGGER.log(Level.WARNING, ex, () -> "Unable to determine locale for locale code " + localeCode);
+            return null;
         }
-        this.localeCode = localeCode;
     }
 
     @Extension
@@ -66,12 +136,28 @@ public class UserLocaleProperty extends UserProperty {
         }
 
         public UserProperty newInstance(User user) {
-            return new UserLocaleProperty(LocaleProvider.getLocale().toString());
+            // follow the browser until the user chooses
+            return new UserLocaleProperty(PluginImpl.USE_BROWSER_LOCALE);
         }
 
         @Override
         public UserProperty newInstance(StaplerRequest2 req, @NonNull JSONObject formData) {
-            return new UserLocaleProperty(formData.optString("localeCode"));
+            UserLocaleProperty property = new UserLocaleProperty(formData.optString("localeCode"));
+            if (req != null) {
+                updateCookie(req, req.findAncestorObject(User.class), property.getLocale());
+            }
+            return property;
+        }
+
+        /**
+         * Makes the {@link LocaleCookie} follow the preference of a user who changes their own preference.
+         */
+        static void updateCookie(StaplerRequest2 req, @CheckForNull User user, @CheckForNull Locale locale) {
+            PluginImpl.Settings settings = PluginImpl.get().getSettings();
+            StaplerResponse2 rsp = Stapler.getCurrentResponse2();
+            if (settings.localeCookie() && rsp != null && user != null && user.equals(User.current())) {
+                LocaleCookie.write(req, rsp, locale, settings.cookieKeyGeneration());
+            }
         }
 
         @Override
@@ -85,6 +171,100 @@ public class UserLocaleProperty extends UserProperty {
             return UserPropertyCategory.get(UserPropertyCategory.Appearance.class);
         }
 
+        /**
+         * Switches the language of the current user right away, without submitting the whole user configuration.
+         * The user is saved shortly afterwards by {@link UserLocaleSaver}.
+         *
+         * @param localeCode one of {@link PluginImpl#ALLOWED_LOCALES}, or {@link PluginImpl#USE_BROWSER_LOCALE}
+         * @return an empty response
+         * @throws IOException if the user had no {@link UserLocaleProperty} yet and could not be saved
+         */
+        @RequirePOST
+        public HttpResponse doSwitchLocale(@QueryParameter String localeCode) throws IOException {
+            User user = User.current();
+            if (user == null || !isEnabled()) {
+                return HttpResponses.forbidden();
+            }
+            localeCode = Util.fixEmptyAndTrim(localeCode);
+            if (!PluginImpl.USE_BROWSER_LOCALE.equals(localeCode) && !LocaleRegistry.isAllowed(localeCode)) {
+                return HttpResponses.errorWithoutStack(HttpServletResponse.SC_BAD_REQUEST, "Unsupported locale");
+            }
+            UserLocaleProperty property = user.getProperty(UserLocaleProperty.class);
+            if (property == null) {
+                property = new UserLocaleProperty(localeCode);
+                user.addProperty(property);
+            } else {
+                property.setLocaleCode(localeCode);
+                UserLocaleSaver.get().schedule(user);
+            }
+            updateCookie(Stapler.getCurrentRequest2(), user, property.getLocale());
+            return HttpResponses.ok();
+        }
+
+        /**
+         * Counts the languages of users, as JSON.
+         *
+         * @param users a regular expression the IDs of the users to count must match, or empty for all users
+         * @param from only count users with this language code, or empty for any code
+         * @return the {@link UserLocaleAudit.Result}
+         * @throws InterruptedException if interrupted while counting
+         */
+        @GET
+        public HttpResponse doAudit(@QueryParameter String users, @QueryParameter String from)
+                throws InterruptedException {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            UserLocaleAudit audit;
+            try {
+                audit = UserLocaleAudit.parse(users, from, null);
+            } catch (IllegalArgumentException e) {
+                // invalid regular expressions
+                return HttpResponses.errorWithoutStack(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            }
+            return HttpResponses.okJSON(audit.run().toJSONObject());
+        }
+
+        /**
+         * Starts assigning a language to users in the background, and reports the assignment as JSON.
+         * Its progress, and then its result, are reported by {@link #doAssignment()}.
+         *
+         * @param users a regular expression the IDs of the users to change must match, or empty for all users
+         * @param from only change users with this language code, or empty for any code
+         * @param localeCode one of {@link PluginImpl#ALLOWED_LOCALES}, or {@link PluginImpl#USE_BROWSER_LOCALE}
+         *      to clear the language of users
+         * @return the {@link UserLocaleManagement.Task}
+         */
+        @RequirePOST
+        public HttpResponse doAssign(
+                @QueryParameter String users, @QueryParameter String from, @QueryParameter String localeCode) {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            localeCode = Util.fixEmptyAndTrim(localeCode);
+            if (localeCode == null) {
+                return HttpResponses.errorWithoutStack(HttpServletResponse.SC_BAD_REQUEST, "Missing localeCode");
+            }
+            UserLocaleManagement.Task task;
+            try {
+                task = UserLocaleManagement.get().start(UserLocaleAudit.parse(users, from, localeCode));
+            } catch (IllegalArgumentException e) {
+                // also invalid regular expressions
+                return HttpResponses.errorWithoutStack(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            } catch (IllegalStateException e) {
+                return HttpResponses.errorWithoutStack(HttpServletResponse.SC_CONFLICT, e.getMessage());
+            }
+            return HttpResponses.okJSON(task.toJSONObject());
+        }
+
+        /**
+         * Reports the assignment started last, or the audit started from {@link UserLocaleManagement}, as JSON.
+         *
+         * @return the {@link UserLocaleManagement.Task}, or an empty object if there was none
+         */
+        @GET
+        public HttpResponse doAssignment() {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            UserLocaleManagement.Task task = UserLocaleManagement.get().getTask();
+            return HttpResponses.okJSON(task == null ? new JSONObject() : task.toJSONObject());
+        }
+
         /**
          * Retrieves a ListBoxModel containing the available user locales.
          * This method populates a ListBoxModel with the available user locales,
@@ -95,27 +275,8 @@ public class UserLocaleProperty extends UserProperty {
          */
         @RequirePOST
         public ListBoxModel doFillLocaleCodeItems() {
-            ListBoxModel items = new ListBoxModel();
-            Locale originalLocale = LocaleProvider.getLocale();
-
-            // Use originalLocale to display the "Use Default Locale" option
-            String originalLocaleDisplay =
-                    String.format("Use Default Locale - %s (%s)", originalLocale.getDisplayName(), originalLocale);
-            items.add(new ListBoxModel.Option(originalLocaleDisplay, USE_BROWSER_LOCALE));
-
-            Locale[] availableLocales = Locale.getAvailableLocales();
-            List<Locale> sortedLocales = Arrays.stream(availableLocales)
-                    .filter(locale ->
-                            ALLOWED_LOCALES.contains(locale.toString())) // Ensure no empty or null locale strings
-                    .sorted(Comparator.comparing(Locale::getDisplayName))
-                    .toList();
-
-            for (Locale locale : sortedLocales) {
-                String displayText = String.format("%s - %s", locale.getDisplayName(), locale);
-                items.add(new ListBoxModel.Option(displayText, locale.toString()));
-            }
-
-            return items;
+            // Use the locale the user would get otherwise to display the "Use Default Locale" option
+            return LocaleOptions.build(LocaleProvider.getLocale());
         }
     }
 }
@@ -0,0 +1,95 @@
+package hudson.plugins.locale.user;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.init.Terminator;
+import hudson.model.User;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+
+/**
+ * Saves users whose {@link UserLocaleProperty} was switched through
+ * {@link UserLocaleProperty.DescriptorImpl#doSwitchLocale(String)} or assigned by {@link UserLocaleAudit},
+ * off the request thread.
+ * <p>
+ * Saves are delayed by {@link #DELAY_MILLIS}, so that a user switching several times in a row,
+ * or many users switching at once, only cause one write per user and per delay.
+ */
+@Extension
+public final class UserLocaleSaver {
+
+    private static final Logger LOGGER = Logger.getLogger(UserLocaleSaver.class.getName());
+
+    /**
+     * How long switched users wait before being saved.
+     */
+    static final long DELAY_MILLIS = SystemProperties.getLong(UserLocaleSaver.class.getName() + ".delayMillis", 5000L);
+
+    private final Set<User> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public static UserLocaleSaver get() {
+        return ExtensionList.lookupSingleton(UserLocaleSaver.class);
+    }
+
+    /**
+     * Saves the given user soon, together with everybody else switching around the same time.
+     *
+     * @param user the user to save
+     */
+    public void schedule(@NonNull User user) {
+        pending.add(user);
+        if (scheduled.compareAndSet(false, true)) {
+            Timer.get().schedule(this::flush, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @param user a user
+     * @return whether the user waits to be saved
+     */
+    public boolean isPending(@NonNull User user) {
+        return pending.contains(user);
+    }
+
+    /**
+     * Saves all pending users now.
+     *
+     * @return the number of users that could not be saved
+     */
+    public int flush() {
+        scheduled.set(false);
+        int failed = 0;
+        for (Iterator<User> it = pending.iterator(); it.hasNext(); ) {
+            User user = it.next();
+            it.remove();
+            if (User.getById(user.getId(), false) != user) {
+                continue; // deleted in the meantime
+            }
+            try {
+                user.save();
+            } catch (IOException e) {
+                failed++;
+                LOGGER.log(Level.WARNING, e, () -> "Unable to save the language of " + user.getId());
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Does not lose switches made right before shutting down.
+     */
+    @Terminator
+    public static void flushOnShutdown() {
+        get().flush();
+    }
+}
@@ -0,0 +1,56 @@
+package hudson.plugins.locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.WithoutJenkins;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class AcceptLanguageNegotiatorTest {
+
+    @Test
+    @WithoutJenkins
+    void testMatch() {
+        assertSame(PluginImpl.parse("fr"), AcceptLanguageNegotiator.match("fr-CH, fr;q=0.9, en;q=0.8, *;q=0.5"));
+        assertSame(PluginImpl.parse("de"), AcceptLanguageNegotiator.match("xx, de-AT;q=0.7"));
+        assertSame(PluginImpl.parse("en"), AcceptLanguageNegotiator.match("de;q=0.2, en;q=0.8"));
+        assertSame(PluginImpl.parse("pt_BR"), AcceptLanguageNegotiator.match("pt-BR"));
+        assertSame(PluginImpl.parse("pt_PT"), AcceptLanguageNegotiator.match("pt-PT,pt;q=0.5"));
+        assertSame(PluginImpl.parse("zh_TW"), AcceptLanguageNegotiator.match("zh-Hant-TW"));
+        assertSame(PluginImpl.parse("zh_CN"), AcceptLanguageNegotiator.match("zh"));
+        assertSame(PluginImpl.parse("nb_NO"), AcceptLanguageNegotiator.match("nb"));
+        assertNull(AcceptLanguageNegotiator.match("xx, yy;q=0.5"));
+        assertNull(AcceptLanguageNegotiator.match("fr;q=0"));
+        assertNull(AcceptLanguageNegotiator.match("*"));
+        assertNull(AcceptLanguageNegotiator.match(";;;"));
+    }
+
+    @Test
+    @WithoutJenkins
+    void testNegotiateIsCached() {
+        AcceptLanguageNegotiator negotiator = new AcceptLanguageNegotiator(2);
+        assertSame(PluginImpl.parse("ja"), negotiator.negotiate("ja-JP"));
+        assertSame(PluginImpl.parse("ja"), negotiator.negotiate("ja-JP"));
+        assertNull(negotiator.negotiate("xx"));
+        assertNull(negotiator.negotiate("yy")); // evicts "xx" rather than the header in use
+        assertSame(PluginImpl.parse("ja"), negotiator.negotiate("ja-JP"));
+        assertNull(negotiator.negotiate("xx"));
+        assertNull(negotiator.negotiate(null));
+        assertEquals(2, negotiator.getHitCount());
+        assertEquals(4, negotiator.getMissCount());
+    }
+
+    @Test
+    void testNegotiatedLanguageHeader(JenkinsRule j) throws Exception {
+        PluginImpl.get().setNegotiateAcceptLanguage(true);
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            wc.addRequestHeader("Accept-Language", "xx-YY, de-CH;q=0.9, en;q=0.5");
+            String language = wc.goTo("", "text/html").getWebResponse().getResponseHeaderValue("X-Jenkins-Language");
+            assertEquals("de", language);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package hudson.plugins.locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class BoundedCacheTest {
+
+    @Test
+    void testEvictsEntriesNotInUse() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(4);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(1, cache.get("a"));
+            assertEquals(i, cache.computeIfAbsent("x" + i, k -> Integer.parseInt(k.substring(1))));
+        }
+        assertEquals(4, cache.size());
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(99, cache.get("x99"));
+    }
+
+    @Test
+    void testComputeIfAbsentKeepsCachedValue() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(4);
+        assertEquals(1, cache.computeIfAbsent("a", k -> 1));
+        assertEquals(1, cache.computeIfAbsent("a", k -> 2));
+        cache.put("a", 3);
+        assertEquals(3, cache.get("a"));
+    }
+
+    @Test
+    void testRemoveAndClear() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2);
+        for (int i = 0; i < 100; i++) {
+            cache.put("a", i);
+            cache.remove("a");
+        }
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.clear();
+        assertEquals(0, cache.size());
+        cache.put("c", 3);
+        cache.put("d", 4);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testConcurrentUseStaysBounded() throws Exception {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            executor.execute(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    int key = (i * 31 + offset) % 1000;
+                    cache.computeIfAbsent(key, k -> k);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        cache.put(-1, -1); // evicts what the threads may have left over
+        assertTrue(cache.size() <= 64, "Size: " + cache.size());
+    }
+}
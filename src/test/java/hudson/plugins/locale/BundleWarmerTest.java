@@ -0,0 +1,66 @@
+package hudson.plugins.locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class BundleWarmerTest {
+
+    @Test
+    void testWarmUp(JenkinsRule j) throws Exception {
+        BundleWarmer.Progress progress = BundleWarmer.get().start(Locale.JAPANESE);
+        assertTrue(progress.await(2, TimeUnit.MINUTES));
+
+        assertFalse(progress.isRunning());
+        assertEquals(List.of(Locale.JAPANESE), progress.getLocales());
+        assertTrue(progress.getTotal() > 0, "Jenkins core has Messages bundles");
+        assertEquals(progress.getTotal(), progress.getDone());
+        assertTrue(progress.getFailed() < progress.getTotal());
+        assertEquals(progress.getDone(), progress.toJSONObject().getInt("done"));
+    }
+
+    @Test
+    void testWarmUpOnDefaultLocaleChange(JenkinsRule j) throws Exception {
+        PluginImpl plugin = PluginImpl.get();
+        plugin.setSystemLocale("de");
+        plugin.setWarmBundles(true);
+        BundleWarmer.Progress before = BundleWarmer.get().getProgress();
+
+        plugin.setSystemLocale("fr");
+        BundleWarmer.Progress progress = BundleWarmer.get().getProgress();
+        assertNotNull(progress);
+        assertNotSame(before, progress);
+        assertEquals(Locale.FRENCH, progress.getLocales().get(0));
+        assertTrue(progress.await(2, TimeUnit.MINUTES));
+
+        plugin.setIgnoreAcceptLanguage(true);
+        assertSame(progress, BundleWarmer.get().getProgress(), "Only changing the default language warms up");
+    }
+
+    @Test
+    void testRepeatedWarmUpsShareThreads(JenkinsRule j) throws Exception {
+        List<BundleWarmer.Progress> started = new ArrayList<>();
+        for (String code : List.of("de", "fr", "ja", "it", "es", "ru", "ko", "pl")) {
+            started.add(BundleWarmer.get().start(PluginImpl.parse(code)));
+        }
+        int threads = BundleWarmer.get().getThreadCount();
+        assertTrue(threads <= BundleWarmer.CONCURRENCY, "Warm-up threads: " + threads);
+        for (BundleWarmer.Progress progress : started) {
+            assertTrue(progress.await(2, TimeUnit.MINUTES));
+        }
+        BundleWarmer.Progress last = started.get(started.size() - 1);
+        assertEquals(last.getTotal(), last.getDone(), "Only earlier warm-ups are cancelled");
+    }
+}
@@ -23,6 +23,7 @@ class ConfigurationAsCodeTest {
         assertEquals("fr", plugin.getSystemLocale());
         assertFalse(plugin.isIgnoreAcceptLanguage());
         assertTrue(plugin.isAllowUserPreferences());
+        assertEquals("[/job/japan-team/ -> ja, /view/deutsch/ -> de]", plugin.getPathRules().toString());
 
         User user = User.get("admin", false, Map.of());
         assertNotNull(user);
@@ -0,0 +1,55 @@
+package hudson.plugins.locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Locale;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class LocaleCookieTest {
+
+    private JenkinsRule j;
+
+    @BeforeEach
+    void setUp(JenkinsRule rule) {
+        j = rule;
+    }
+
+    @Test
+    void testSignedValue() {
+        String value = LocaleCookie.sign("pt_BR", 0);
+        assertEquals(new Locale("pt", "BR"), LocaleCookie.verify(value, 0));
+        // verified values are cached, make sure the cached path agrees
+        assertEquals(new Locale("pt", "BR"), LocaleCookie.verify(value, 0));
+    }
+
+    @Test
+    void testTamperedValues() {
+        String value = LocaleCookie.sign("fr", 0);
+        assertNull(LocaleCookie.verify(value.replace("fr.", "de."), 0));
+        assertNull(LocaleCookie.verify(value.substring(0, value.length() - 1), 0));
+        assertNull(LocaleCookie.verify("fr", 0));
+        assertNull(LocaleCookie.verify("fr.x.abc", 0));
+        assertNull(LocaleCookie.verify("", 0));
+        assertNull(LocaleCookie.verify(null, 0));
+    }
+
+    @Test
+    void testKeyRotation() throws Exception {
+        PluginImpl plugin = PluginImpl.get();
+        int generation = plugin.getCookieKeyGeneration();
+        String value = LocaleCookie.sign("ja", generation);
+
+        j.executeOnServer(plugin::doRotateCookieKey);
+        assertEquals(generation + 1, plugin.getCookieKeyGeneration());
+        assertEquals(generation + 1, plugin.getSettings().cookieKeyGeneration());
+        assertEquals(Locale.JAPANESE, LocaleCookie.verify(value, plugin.getCookieKeyGeneration()));
+
+        j.executeOnServer(plugin::doRotateCookieKey);
+        assertNull(LocaleCookie.verify(value, plugin.getCookieKeyGeneration()));
+    }
+}
@@ -0,0 +1,159 @@
+package hudson.plugins.locale;
+
+import hudson.model.User;
+import hudson.plugins.locale.user.UserLocaleProperty;
+import hudson.security.SecurityRealm;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.List;
+import java.util.Locale;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Measures {@link LocaleFilter#doFilter} in each of its modes, single threaded and contended.
+ */
+@JmhBenchmark
+public class LocaleFilterBenchmark {
+
+    private static final String USER = "bench";
+
+    public abstract static class FilterState extends JmhBenchmarkState {
+        LocaleFilter filter;
+
+        @Override
+        public void setup() throws Exception {
+            PluginImpl plugin = PluginImpl.get();
+            configure(plugin);
+            filter = new LocaleFilter(plugin);
+        }
+
+        abstract void configure(PluginImpl plugin) throws Exception;
+    }
+
+    /**
+     * The browser's {@code Accept-Language} header decides.
+     */
+    public static class BrowserState extends FilterState {
+        @Override
+        void configure(PluginImpl plugin) {
+            plugin.setSystemLocale(PluginImpl.USE_BROWSER_LOCALE);
+            plugin.setIgnoreAcceptLanguage(false);
+            plugin.setAllowUserPreferences(false);
+        }
+    }
+
+    /**
+     * The configured default language is forced on everyone.
+     */
+    public static class ForcedState extends FilterState {
+        @Override
+        void configure(PluginImpl plugin) {
+            plugin.setSystemLocale("de");
+            plugin.setIgnoreAcceptLanguage(true);
+            plugin.setAllowUserPreferences(false);
+        }
+    }
+
+    /**
+     * The language of the current user decides.
+     */
+    public static class UserState extends FilterState {
+        @Override
+        void configure(PluginImpl plugin) throws Exception {
+            plugin.setSystemLocale(PluginImpl.USE_BROWSER_LOCALE);
+            plugin.setIgnoreAcceptLanguage(false);
+            plugin.setAllowUserPreferences(true);
+            User user = User.getById(USER, true);
+            user.addProperty(new UserLocaleProperty("ja"));
+            user.getProperty(UserLocaleProperty.class).setLocaleCode("ja");
+        }
+    }
+
+    /**
+     * One request per benchmark thread, reused across invocations. The chain forgets what the filter stored
+     * on the request, so that every invocation resolves the locale again instead of taking the path of
+     * forwards and includes, which reuse it.
+     */
+    @State(Scope.Thread)
+    public static class RequestState {
+        final HttpServletRequest request = MockServlet.request("/job/foo/", "fr-CH, fr;q=0.9, en;q=0.8, *;q=0.5");
+        final HttpServletResponse response = MockServlet.response();
+        ServletRequest filtered;
+        final FilterChain chain = (req, rsp) -> {
+            filtered = req;
+            request.removeAttribute(LocaleFilter.RESOLVED_ATTRIBUTE);
+            request.removeAttribute(LocaleFilter.LOCALE_ATTRIBUTE);
+        };
+
+        Locale run(LocaleFilter filter) throws Exception {
+            filter.doFilter(request, response, chain);
+            return filtered.getLocale();
+        }
+    }
+
+    /**
+     * Authenticates the benchmark thread as {@link #USER}.
+     */
+    @State(Scope.Thread)
+    public static class LoggedIn {
+        @Setup(Level.Iteration)
+        public void login() {
+            SecurityContextHolder.getContext()
+                    .setAuthentication(new UsernamePasswordAuthenticationToken(
+                            USER, null, List.of(SecurityRealm.AUTHENTICATED_AUTHORITY2)));
+        }
+
+        @TearDown(Level.Iteration)
+        public void logout() {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Locale browser(BrowserState state, RequestState request) throws Exception {
+        return request.run(state.filter);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Locale browserContended(BrowserState state, RequestState request) throws Exception {
+        return request.run(state.filter);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Locale forced(ForcedState state, RequestState request) throws Exception {
+        return request.run(state.filter);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Locale forcedContended(ForcedState state, RequestState request) throws Exception {
+        return request.run(state.filter);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Locale user(UserState state, RequestState request, LoggedIn loggedIn) throws Exception {
+        return request.run(state.filter);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Locale userContended(UserState state, RequestState request, LoggedIn loggedIn) throws Exception {
+        return request.run(state.filter);
+    }
+}
@@ -0,0 +1,373 @@
+package hudson.plugins.locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.model.UnprotectedRootAction;
+import hudson.model.User;
+import hudson.plugins.locale.user.UserLocaleProperty;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import net.sf.json.JSONObject;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebResponse;
+import org.htmlunit.util.NameValuePair;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+import org.jvnet.hudson.test.WithoutJenkins;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+import org.jvnet.localizer.LocaleProvider;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+
+@WithJenkins
+class LocaleFilterTest {
+
+    private JenkinsRule j;
+
+    @BeforeEach
+    void setUp(JenkinsRule rule) {
+        j = rule;
+    }
+
+    @Test
+    void testBypassPaths() throws Exception {
+        PluginImpl plugin = PluginImpl.get();
+        plugin.setSystemLocale("de");
+        plugin.setIgnoreAcceptLanguage(true);
+        plugin.setBypassPaths("/static/\n  /api/  \n");
+        LocaleFilter filter = plugin.getFilter();
+        long bypassed = filter.getBypassedCount();
+
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            assertNull(language(wc, "api/json", "application/json"));
+            assertEquals(bypassed + 1, filter.getBypassedCount());
+
+            assertEquals("de", language(wc, "", "text/html"));
+
+            plugin.setBypassPaths("");
+            assertEquals("de", language(wc, "api/json", "application/json"));
+        }
+    }
+
+    @Test
+    void testFilterInstalledOnlyWhenRequired() throws Exception {
+        PluginImpl plugin = PluginImpl.get();
+        plugin.setSystemLocale(PluginImpl.USE_BROWSER_LOCALE);
+        plugin.setIgnoreAcceptLanguage(false);
+        plugin.setAllowUserPreferences(false);
+        plugin.setNegotiateAcceptLanguage(false);
+        assertFalse(plugin.isFilterInstalled());
+
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            assertNull(language(wc, "", "text/html"));
+
+            plugin.setIgnoreAcceptLanguage(true);
+            assertTrue(plugin.isFilterInstalled());
+            assertEquals(Locale.getDefault().toString(), language(wc, "", "text/html"));
+
+            plugin.setIgnoreAcceptLanguage(false);
+            assertFalse(plugin.isFilterInstalled());
+            assertNull(language(wc, "", "text/html"));
+        }
+    }
+
+    @Test
+    void testDefaultBypassPaths() {
+        PluginImpl plugin = PluginImpl.get();
+        assertEquals(String.join("\n", PluginImpl.DEFAULT_BYPASS_PATHS), plugin.getBypassPaths());
+        assertEquals(PluginImpl.DEFAULT_BYPASS_PATHS, plugin.getSettings().bypassPaths());
+    }
+
+    @Test
+    void testMetrics() throws Exception {
+        PluginImpl plugin = PluginImpl.get();
+        plugin.setSystemLocale("de");
+        plugin.setIgnoreAcceptLanguage(true);
+        plugin.setMetricsEnabled(true);
+        LocaleMetrics metrics = LocaleMetrics.get();
+
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            assertEquals("de", language(wc, "", "text/html"));
+
+            String path = "descriptorByName/" + PluginImpl.class.getName() + "/metrics";
+            JSONObject json = JSONObject.fromObject(
+                    wc.goTo(path, "application/json").getWebResponse().getContentAsString());
+            assertTrue(json.getBoolean("enabled"));
+            assertTrue(json.getLong("requests") >= 1);
+            assertTrue(json.getJSONObject("byMode").getLong("default") >= 1);
+            assertTrue(json.getJSONObject("byLocale").getLong("de") >= 1);
+            assertFalse(json.getJSONArray("latency").isEmpty());
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(LocaleMetrics.OBJECT_NAME);
+        assertEquals(metrics.getRequestCount(), server.getAttribute(name, "RequestCount"));
+    }
+
+    @Test
+    void testMetricsDisabled() throws Exception {
+        PluginImpl plugin = PluginImpl.get();
+        plugin.setSystemLocale("de");
+        plugin.setIgnoreAcceptLanguage(true);
+        plugin.setMetricsEnabled(false);
+        LocaleMetrics metrics = LocaleMetrics.get();
+
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            assertEquals("de", language(wc, "", "text/html"));
+        }
+        assertEquals(0, metrics.getRequestCount());
+    }
+
+    @Test
+    void testProviderUsesResolvedLocale() throws Exception {
+        j.jenkins.setSecurityRealm(j.createDummySecurityRealm());
+        PluginImpl plugin = PluginImpl.get();
+        plugin.setSystemLocale("de");
+        plugin.setIgnoreAcceptLanguage(true);
+        plugin.setAllowUserPreferences(true);
+        User.getById("bob", true).getProperty(UserLocaleProperty.class).setLocaleCode("ja");
+
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            assertEquals("de", providerLocale(wc));
+        }
+        try (JenkinsRule.WebClient wc = j.createWebClient().login("bob")) {
+            assertEquals("ja", providerLocale(wc));
+        }
+    }
+
+    @Test
+    void testRedispatchReusesResolvedLocale() throws Exception {
+        PluginImpl plugin = PluginImpl.get();
+        plugin.setSystemLocale("de");
+        plugin.setIgnoreAcceptLanguage(true);
+        plugin.setMetricsEnabled(true);
+        LocaleFilter filter = new LocaleFilter(plugin);
+
+        HttpServletRequest request = MockServlet.request("/job/foo/", "fr");
+        HttpServletResponse response = MockServlet.response();
+        List<ServletRequest> seen = new ArrayList<>();
+        FilterChain chain = (req, rsp) -> seen.add(req);
+
+        filter.doFilter(request, response, chain);
+        // async dispatch with the original request
+        filter.doFilter(request, response, chain);
+        // forward of the wrapped request
+        filter.doFilter(seen.get(0), response, chain);
+
+        assertEquals(3, seen.size());
+        for (ServletRequest req : seen) {
+            assertInstanceOf(LocaleFilter.LocaleRequest.class, req);
+            assertEquals(Locale.GERMAN, req.getLocale());
+        }
+        assertSame(seen.get(0), seen.get(2), "Already wrapped requests should not be wrapped again");
+        assertEquals(1, LocaleMetrics.get().getRequestCount(), "The locale should only be resolved once");
+    }
+
+    @Test
+    void testCacheHeaders() throws Exception {
+        j.jenkins.setSecurityRealm(j.createDummySecurityRealm());
+        PluginImpl plugin = PluginImpl.get();
+        plugin.setSystemLocale("pt_BR");
+        plugin.setIgnoreAcceptLanguage(true);
+        plugin.setCacheHeaders(true);
+
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            WebResponse forced = wc.goTo("").getWebResponse();
+            assertEquals("pt-BR", forced.getResponseHeaderValue("Content-Language"));
+            assertFalse(headerValues(forced, "Vary").contains("Accept-Language"));
+
+            plugin.setIgnoreAcceptLanguage(false);
+            WebResponse browser = wc.goTo("").getWebResponse();
+            assertNull(browser.getResponseHeaderValue("Content-Language"));
+            assertTrue(headerValues(browser, "Vary").contains("Accept-Language"));
+
+            plugin.setAllowUserPreferences(true);
+            WebResponse user = wc.goTo("").getWebResponse();
+            assertTrue(headerValues(user, "Cache-Control").contains("private"));
+        }
+    }
+
+    @Test
+    void testCacheHeadersOfPagesSettingCacheControl() throws Exception {
+        j.jenkins.setSecurityRealm(j.createDummySecurityRealm());
+        PluginImpl plugin = PluginImpl.get();
+        plugin.setAllowUserPreferences(true);
+        plugin.setCacheHeaders(true);
+
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            WebResponse response = wc.goTo(CacheControlAction.URL, "text/plain").getWebResponse();
+            List<String> values = response.getResponseHeaders().stream()
+                    .filter(header -> header.getName().equalsIgnoreCase("Cache-Control"))
+                    .map(NameValuePair::getValue)
+                    .toList();
+            assertEquals(List.of("private, no-cache, max-age=60"), values);
+        }
+    }
+
+    @Test
+    @WithoutJenkins
+    void testWithPrivate() {
+        assertEquals("private", LocaleFilter.LocaleResponse.withPrivate(null));
+        assertEquals("private, no-cache", LocaleFilter.LocaleResponse.withPrivate("no-cache"));
+        assertEquals("private, max-age=60", LocaleFilter.LocaleResponse.withPrivate("public, max-age=60, private"));
+    }
+
+    @Test
+    void testLocaleETags() throws Exception {
+        PluginImpl plugin = PluginImpl.get();
+        plugin.setSystemLocale("de");
+        plugin.setIgnoreAcceptLanguage(true);
+
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            assertEquals("\"abc\"", eTag(wc));
+
+            plugin.setLocaleETags(true);
+            assertEquals("\"abc-de\"", eTag(wc));
+
+            // the browser revalidates with the tag it was sent
+            assertEquals(304, revalidate(wc, "\"abc-de\"").getStatusCode());
+            assertEquals(200, revalidate(wc, "\"abc-fr\"").getStatusCode());
+        }
+    }
+
+    @Test
+    @WithoutJenkins
+    void testStripETagSuffix() {
+        assertEquals("\"abc\"", LocaleFilter.stripETagSuffix("\"abc-de\"", "-de"));
+        assertEquals("W/\"a\", \"b-fr\", *", LocaleFilter.stripETagSuffix("W/\"a-de\", \"b-fr\", *", "-de"));
+        assertEquals("abc", LocaleFilter.stripETagSuffix("abc-de", "-de"));
+        assertNull(LocaleFilter.stripETagSuffix(null, "-de"));
+    }
+
+    private static WebResponse revalidate(JenkinsRule.WebClient wc, String eTag) throws Exception {
+        WebRequest request = new WebRequest(new URL(wc.getContextPath() + ETagAction.URL));
+        request.setAdditionalHeader("If-None-Match", eTag);
+        return wc.loadWebResponse(request);
+    }
+
+    private static String eTag(JenkinsRule.WebClient wc) throws Exception {
+        return wc.goTo(ETagAction.URL, "text/plain").getWebResponse().getResponseHeaderValue("ETag");
+    }
+
+    private static String headerValues(WebResponse response, String name) {
+        return response.getResponseHeaders().stream()
+                .filter(header -> header.getName().equalsIgnoreCase(name))
+                .map(NameValuePair::getValue)
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String providerLocale(JenkinsRule.WebClient wc) throws Exception {
+        return wc.goTo(ProviderLocaleAction.URL, "text/plain")
+                .getWebResponse()
+                .getContentAsString()
+                .trim();
+    }
+
+    private static String language(JenkinsRule.WebClient wc, String path, String contentType) throws Exception {
+        return wc.goTo(path, contentType).getWebResponse().getResponseHeaderValue("X-Jenkins-Language");
+    }
+
+    @TestExtension("testLocaleETags")
+    public static class ETagAction implements UnprotectedRootAction {
+
+        static final String URL = "etag";
+
+        @Override
+        public String getIconFileName() {
+            return null;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return null;
+        }
+
+        @Override
+        public String getUrlName() {
+            return URL;
+        }
+
+        public void doIndex(StaplerRequest2 req, StaplerResponse2 rsp) throws IOException {
+            if ("\"abc\"".equals(req.getHeader("If-None-Match"))) {
+                rsp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            rsp.setHeader("ETag", "\"abc\"");
+            rsp.setContentType("text/plain");
+            rsp.getWriter().print("abc");
+        }
+    }
+
+    @TestExtension("testCacheHeadersOfPagesSettingCacheControl")
+    public static class CacheControlAction implements UnprotectedRootAction {
+
+        static final String URL = "cache-control";
+
+        @Override
+        public String getIconFileName() {
+            return null;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return null;
+        }
+
+        @Override
+        public String getUrlName() {
+            return URL;
+        }
+
+        public void doIndex(StaplerResponse2 rsp) throws IOException {
+            rsp.setHeader("Cache-Control", "no-cache");
+            rsp.addHeader("Cache-Control", "public, max-age=60");
+            rsp.setContentType("text/plain");
+            rsp.getWriter().print("abc");
+        }
+    }
+
+    @TestExtension("testProviderUsesResolvedLocale")
+    public static class ProviderLocaleAction implements UnprotectedRootAction {
+
+        static final String URL = "provider-locale";
+
+        @Override
+        public String getIconFileName() {
+            return null;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return null;
+        }
+
+        @Override
+        public String getUrlName() {
+            return URL;
+        }
+
+        public HttpResponse doIndex() {
+            return HttpResponses.text(LocaleProvider.getLocale().toString());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package hudson.plugins.locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import hudson.plugins.locale.LocaleFormatters.NumberStyle;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.time.format.FormatStyle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class LocaleFormattersTest {
+
+    @Test
+    void testDateTime() {
+        assertSame(
+                LocaleFormatters.dateTime(FormatStyle.MEDIUM, FormatStyle.SHORT, Locale.GERMAN),
+                LocaleFormatters.dateTime(FormatStyle.MEDIUM, FormatStyle.SHORT, Locale.GERMAN));
+        assertNotSame(
+                LocaleFormatters.dateTime(FormatStyle.MEDIUM, null, Locale.GERMAN),
+                LocaleFormatters.dateTime(FormatStyle.MEDIUM, null, Locale.FRENCH));
+        assertEquals(Locale.JAPANESE, LocaleFormatters.dateTime(null, FormatStyle.SHORT, Locale.JAPANESE).getLocale());
+        assertThrows(IllegalArgumentException.class, () -> LocaleFormatters.dateTime(null, null, Locale.GERMAN));
+    }
+
+    @Test
+    void testOfPattern() {
+        LocalDate date = LocalDate.of(2024, 3, 1);
+        assertEquals("March 2024", LocaleFormatters.ofPattern("MMMM yyyy", Locale.ENGLISH).format(date));
+        assertEquals("mars 2024", LocaleFormatters.ofPattern("MMMM yyyy", Locale.FRENCH).format(date));
+        assertSame(
+                LocaleFormatters.ofPattern("MMMM yyyy", Locale.GERMAN),
+                LocaleFormatters.ofPattern("MMMM yyyy", Locale.GERMAN));
+        assertThrows(IllegalArgumentException.class, () -> LocaleFormatters.ofPattern("{", Locale.GERMAN));
+    }
+
+    @Test
+    void testFormat() {
+        assertEquals("1.234,5", LocaleFormatters.format(NumberStyle.NUMBER, 1234.5, Locale.GERMAN));
+        assertEquals("1,234.5", LocaleFormatters.format(NumberStyle.NUMBER, 1234.5, Locale.ENGLISH));
+        assertEquals("1,235", LocaleFormatters.format(NumberStyle.INTEGER, 1234.6, Locale.ENGLISH));
+        assertEquals("50%", LocaleFormatters.format(NumberStyle.PERCENT, 0.5, Locale.ENGLISH));
+        assertEquals("1K", LocaleFormatters.format(NumberStyle.COMPACT, 1234, Locale.ENGLISH));
+    }
+
+    @Test
+    void testFormatConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int n = 0; n < 10_000; n++) {
+                        Locale locale = n % 2 == 0 ? Locale.GERMAN : Locale.ENGLISH;
+                        assertEquals(
+                                NumberFormat.getNumberInstance(locale).format(n * 1.5),
+                                LocaleFormatters.format(NumberStyle.NUMBER, n * 1.5, locale));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
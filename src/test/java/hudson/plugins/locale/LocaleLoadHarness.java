@@ -0,0 +1,282 @@
+package hudson.plugins.locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import hudson.model.UnprotectedRootAction;
+import hudson.model.User;
+import hudson.plugins.locale.user.UserLocaleProperty;
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+import org.jvnet.localizer.LocaleProvider;
+import org.kohsuke.stapler.HttpResponses;
+
+/**
+ * Fires concurrent HTTP requests at a running Jenkins, for each mode of {@link PluginImpl} and with the plugin
+ * out of the way, as anonymous users and as users with and without a {@link UserLocaleProperty}, using a mix of
+ * {@code Accept-Language} headers. Reports throughput and p50/p99 latency.
+ * <p>
+ * Only executed through the {@code load} profile: {@code mvn test -Dload}.
+ * Results are logged and written to {@code target/load-report.json}. The number of client threads and the
+ * duration of each run can be changed with the {@code loadHarness.threads}, {@code loadHarness.warmupSeconds}
+ * and {@code loadHarness.seconds} system properties. Requests go to a page that only prints the locale,
+ * so that the cost of resolving it is not hidden behind rendering.
+ */
+@WithJenkins
+class LocaleLoadHarness {
+
+    private static final Logger LOGGER = Logger.getLogger(LocaleLoadHarness.class.getName());
+
+    private static final int THREADS = Integer.getInteger("loadHarness.threads", 16);
+
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("loadHarness.warmupSeconds", 3));
+
+    private static final Duration MEASUREMENT = Duration.ofSeconds(Long.getLong("loadHarness.seconds", 10));
+
+    private static final int USERS = 20;
+
+    private static final List<String> ACCEPT_LANGUAGES = Arrays.asList(
+            "fr-CH, fr;q=0.9, en;q=0.8, de;q=0.7, *;q=0.5", "de", "ja,en-US;q=0.7,en;q=0.3", "zh-Hant-TW",
+            "pt-BR,pt;q=0.8", "xx-YY", null);
+
+    @Test
+    void runLoad(JenkinsRule j) throws Exception {
+        j.jenkins.setSecurityRealm(j.createDummySecurityRealm());
+        for (int i = 0; i < USERS; i++) {
+            String localeCode = i % 2 == 0 ? "ja" : PluginImpl.USE_BROWSER_LOCALE;
+            User.getById("user" + i, true).getProperty(UserLocaleProperty.class).setLocaleCode(localeCode);
+        }
+
+        Map<String, Consumer<PluginImpl>> modes = new LinkedHashMap<>();
+        modes.put("off", plugin -> {});
+        modes.put("ignoreAcceptLanguage", plugin -> plugin.setIgnoreAcceptLanguage(true));
+        modes.put("allowUserPreferences", plugin -> plugin.setAllowUserPreferences(true));
+        modes.put("negotiateAcceptLanguage", plugin -> plugin.setNegotiateAcceptLanguage(true));
+
+        URI uri = URI.create(j.getURL() + LocaleAction.URL + "/");
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        JSONArray results = new JSONArray();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (Map.Entry<String, Consumer<PluginImpl>> mode : modes.entrySet()) {
+                PluginImpl plugin = reset(PluginImpl.get());
+                mode.getValue().accept(plugin);
+                for (Client kind : Client.values()) {
+                    run(executor, client, uri, kind, WARMUP);
+                    Result result = run(executor, client, uri, kind, MEASUREMENT);
+                    LOGGER.info(String.format(
+                            "%-24s %-24s %10.1f req/s  p50 %8d us  p99 %8d us  errors %d",
+                            mode.getKey(),
+                            kind,
+                            result.throughput(),
+                            result.percentileMicros(50),
+                            result.percentileMicros(99),
+                            result.errors));
+                    results.add(result.toJSONObject()
+                            .element("mode", mode.getKey())
+                            .element("client", kind.name()));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        JSONObject report = new JSONObject()
+                .element("java", System.getProperty("java.version"))
+                .element("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"))
+                .element("processors", Runtime.getRuntime().availableProcessors())
+                .element("threads", THREADS)
+                .element("warmupSeconds", WARMUP.toSeconds())
+                .element("measurementSeconds", MEASUREMENT.toSeconds())
+                .element("results", results);
+        File file = new File("target/load-report.json");
+        Files.writeString(file.toPath(), report.toString(2), StandardCharsets.UTF_8);
+        LOGGER.info(() -> "Report written to " + file.getAbsolutePath());
+        assertEquals(modes.size() * Client.values().length, results.size());
+    }
+
+    private static PluginImpl reset(PluginImpl plugin) {
+        plugin.setSystemLocale("de");
+        plugin.setIgnoreAcceptLanguage(false);
+        plugin.setAllowUserPreferences(false);
+        plugin.setNegotiateAcceptLanguage(false);
+        plugin.setLocaleCookie(false);
+        plugin.setMetricsEnabled(false);
+        return plugin;
+    }
+
+    private static Result run(ExecutorService executor, HttpClient client, URI uri, Client kind, Duration duration)
+            throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Worker>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Worker worker = new Worker(client, uri, kind, i);
+            futures.add(executor.submit(() -> worker.run(deadline)));
+        }
+        Result result = new Result(duration);
+        for (Future<Worker> future : futures) {
+            result.add(future.get());
+        }
+        Arrays.sort(result.latencies);
+        return result;
+    }
+
+    /**
+     * Who sends the requests.
+     */
+    private enum Client {
+        ANONYMOUS,
+        USER_WITH_PREFERENCE,
+        USER_WITHOUT_PREFERENCE;
+
+        /**
+         * @return the {@code Authorization} header of the n-th request, {@code null} for none
+         */
+        String authorization(int n) {
+            if (this == ANONYMOUS) {
+                return null;
+            }
+            // users with an even number have a preference
+            int user = 2 * (n % (USERS / 2)) + (this == USER_WITH_PREFERENCE ? 0 : 1);
+            String credentials = "user" + user + ":user" + user;
+            return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Sends requests from one thread until the deadline, recording their latency.
+     */
+    private static final class Worker {
+        private final HttpClient client;
+        private final URI uri;
+        private final Client kind;
+        private int n;
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        Worker(HttpClient client, URI uri, Client kind, int seed) {
+            this.client = client;
+            this.uri = uri;
+            this.kind = kind;
+            this.n = seed;
+        }
+
+        Worker run(long deadline) throws Exception {
+            while (System.nanoTime() < deadline) {
+                HttpRequest.Builder request = HttpRequest.newBuilder(uri).GET();
+                String acceptLanguage = ACCEPT_LANGUAGES.get(n % ACCEPT_LANGUAGES.size());
+                if (acceptLanguage != null) {
+                    request.header("Accept-Language", acceptLanguage);
+                }
+                String authorization = kind.authorization(n);
+                if (authorization != null) {
+                    request.header("Authorization", authorization);
+                }
+                n++;
+
+                long start = System.nanoTime();
+                HttpResponse<Void> response = client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+                long elapsed = System.nanoTime() - start;
+                if (response.statusCode() != 200) {
+                    errors++;
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = elapsed;
+            }
+            return this;
+        }
+    }
+
+    /**
+     * The latencies of all workers of a run.
+     */
+    private static final class Result {
+        private final Duration duration;
+        private long[] latencies = new long[0];
+        private int errors;
+
+        Result(Duration duration) {
+            this.duration = duration;
+        }
+
+        void add(Worker worker) {
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + worker.count);
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            errors += worker.errors;
+        }
+
+        double throughput() {
+            return latencies.length / (duration.toNanos() / 1e9);
+        }
+
+        long percentileMicros(int percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            return latencies[(latencies.length - 1) * percentile / 100] / 1000;
+        }
+
+        JSONObject toJSONObject() {
+            return new JSONObject()
+                    .element("requests", latencies.length)
+                    .element("errors", errors)
+                    .element("throughput", Math.round(throughput() * 10) / 10.0)
+                    .element("p50Micros", percentileMicros(50))
+                    .element("p99Micros", percentileMicros(99));
+        }
+    }
+
+    /**
+     * A page doing nothing but asking for the locale.
+     */
+    @TestExtension
+    public static class LocaleAction implements UnprotectedRootAction {
+
+        static final String URL = "locale-load";
+
+        @Override
+        public String getIconFileName() {
+            return null;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return null;
+        }
+
+        @Override
+        public String getUrlName() {
+            return URL;
+        }
+
+        public org.kohsuke.stapler.HttpResponse doIndex() {
+            return HttpResponses.text(LocaleProvider.getLocale().toString());
+        }
+    }
+}
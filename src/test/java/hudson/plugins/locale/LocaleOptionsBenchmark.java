@@ -0,0 +1,59 @@
+package hudson.plugins.locale;
+
+import hudson.plugins.locale.user.UserLocaleProperty;
+import hudson.util.ListBoxModel;
+import java.util.Locale;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import jenkins.model.Jenkins;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Measures locale code parsing and the locale dropdowns of the global and user configuration.
+ */
+@JmhBenchmark
+public class LocaleOptionsBenchmark {
+
+    public static class JenkinsState extends JmhBenchmarkState {}
+
+    @Benchmark
+    @Threads(1)
+    public Locale parse() {
+        return PluginImpl.parse("zh_TW");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Locale parseContended() {
+        return PluginImpl.parse("zh_TW");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ListBoxModel fillSystemLocaleItems(JenkinsState state) {
+        return PluginImpl.get().doFillSystemLocaleItems();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ListBoxModel fillSystemLocaleItemsContended(JenkinsState state) {
+        return PluginImpl.get().doFillSystemLocaleItems();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ListBoxModel fillLocaleCodeItems(JenkinsState state) {
+        return Jenkins.get()
+                .getDescriptorByType(UserLocaleProperty.DescriptorImpl.class)
+                .doFillLocaleCodeItems();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ListBoxModel fillLocaleCodeItemsContended(JenkinsState state) {
+        return Jenkins.get()
+                .getDescriptorByType(UserLocaleProperty.DescriptorImpl.class)
+                .doFillLocaleCodeItems();
+    }
+}
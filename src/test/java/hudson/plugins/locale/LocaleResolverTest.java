@@ -0,0 +1,203 @@
+package hudson.plugins.locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.User;
+import hudson.plugins.locale.user.UserLocaleProperty;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.Locale;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+import org.kohsuke.stapler.Stapler;
+
+@WithJenkins
+class LocaleResolverTest {
+
+    private JenkinsRule j;
+
+    @BeforeEach
+    void setUp(JenkinsRule rule) {
+        j = rule;
+        j.jenkins.setSecurityRealm(j.createDummySecurityRealm());
+    }
+
+    @Test
+    void testDefaultOrder() {
+        List<String> names = LocaleResolver.all().stream().map(LocaleResolver::getName).toList();
+        assertEquals(List.of("cookie", "user", "default", "acceptLanguage"), names);
+    }
+
+    @Test
+    void testFallsThroughToNextResolver() throws Exception {
+        PluginImpl plugin = PluginImpl.get();
+        plugin.setSystemLocale("de");
+        plugin.setIgnoreAcceptLanguage(true);
+        plugin.setAllowUserPreferences(true);
+        User.getById("bob", true).getProperty(UserLocaleProperty.class).setLocaleCode("ja");
+
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            assertEquals("de", language(wc));
+        }
+        try (JenkinsRule.WebClient wc = j.createWebClient().login("bob")) {
+            assertEquals("ja", language(wc));
+        }
+    }
+
+    @Test
+    void testResolverOrder() throws Exception {
+        PluginImpl plugin = PluginImpl.get();
+        plugin.setSystemLocale("de");
+        plugin.setIgnoreAcceptLanguage(true);
+        plugin.setAllowUserPreferences(true);
+        User.getById("bob", true).getProperty(UserLocaleProperty.class).setLocaleCode("ja");
+
+        try (JenkinsRule.WebClient wc = j.createWebClient().login("bob")) {
+            plugin.setResolverOrder("default\nuser");
+            assertEquals("de", language(wc));
+
+            plugin.setResolverOrder("user");
+            assertEquals("ja", language(wc));
+
+            plugin.setResolverOrder("unknown");
+            assertFalse(plugin.isFilterInstalled());
+            assertNull(language(wc));
+
+            plugin.setResolverOrder("");
+            assertEquals("ja", language(wc));
+        }
+    }
+
+    @Test
+    void testCookie() throws Exception {
+        PluginImpl plugin = PluginImpl.get();
+        plugin.setSystemLocale("de");
+        plugin.setIgnoreAcceptLanguage(true);
+        plugin.setLocaleCookie(true);
+
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            wc.addRequestHeader("Cookie", LocaleCookie.NAME + "=" + LocaleCookie.sign("fr", 0));
+            assertEquals("fr", language(wc));
+
+            wc.addRequestHeader("Cookie", LocaleCookie.NAME + "=fr");
+            assertEquals("de", language(wc));
+        }
+    }
+
+    @Test
+    void testResolverMetrics() throws Exception {
+        PluginImpl plugin = PluginImpl.get();
+        plugin.setSystemLocale("de");
+        plugin.setIgnoreAcceptLanguage(true);
+        plugin.setAllowUserPreferences(true);
+        plugin.setMetricsEnabled(true);
+        LocaleMetrics metrics = LocaleMetrics.get();
+
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            assertEquals("de", language(wc));
+        }
+        assertTrue(metrics.getResolverCallCounts().get("user") >= 1);
+        assertEquals(0L, metrics.getResolverHitCounts().get("user"));
+        assertTrue(metrics.getResolverHitCounts().get("default") >= 1);
+        assertTrue(metrics.toJSONObject().getJSONObject("resolvers").has("default"));
+    }
+
+    @Test
+    void testCustomResolver() throws Exception {
+        PluginImpl plugin = PluginImpl.get();
+        plugin.setSystemLocale("de");
+        plugin.setIgnoreAcceptLanguage(true);
+        plugin.setResolverOrder("header\ndefault");
+
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            wc.addRequestHeader(HeaderResolver.HEADER, "it");
+            assertEquals("it", language(wc));
+
+            wc.removeRequestHeader(HeaderResolver.HEADER);
+            assertEquals("de", language(wc));
+        }
+    }
+
+    @Test
+    void testPathRules() throws Exception {
+        PluginImpl plugin = PluginImpl.get();
+        plugin.setPathRules(List.of(
+                new PathLocaleRule("/manage/", "ja"),
+                new PathLocaleRule("/manage/about/", "fr"),
+                new PathLocaleRule("/manage/", "it")));
+        assertTrue(plugin.isFilterInstalled());
+
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            assertNull(language(wc));
+            assertEquals("ja", language(wc, "manage/"));
+            assertEquals("fr", language(wc, "manage/about/"));
+
+            // before anything else
+            plugin.setSystemLocale("de");
+            plugin.setIgnoreAcceptLanguage(true);
+            plugin.setResolverOrder("default");
+            assertEquals("de", language(wc));
+            assertEquals("ja", language(wc, "manage/"));
+
+            plugin.setPathRules(List.of());
+            assertEquals("de", language(wc, "manage/"));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new PathLocaleRule("job/a/", "ja"));
+        assertThrows(IllegalArgumentException.class, () -> new PathLocaleRule("/job/a/", ""));
+        assertThrows(IllegalArgumentException.class, () -> new PathLocaleRule("/job/a/", "a_b_c_d"));
+    }
+
+    @Test
+    void testPathRulesKeptOnInvalidForm() throws Exception {
+        PluginImpl plugin = PluginImpl.get();
+        List<PathLocaleRule> rules = List.of(new PathLocaleRule("/manage/", "ja"));
+        plugin.setPathRules(rules);
+        JSONObject rule = new JSONObject().element("path", "job/a/").element("localeCode", "ja");
+        JSONObject form = new JSONObject().element("pathRules", new JSONArray().element(rule));
+        j.executeOnServer(() -> assertThrows(
+                RuntimeException.class, () -> plugin.configure(Stapler.getCurrentRequest2(), form)));
+        assertEquals(rules, plugin.getPathRules());
+        assertEquals(rules, plugin.getSettings().pathRules());
+    }
+
+    private static String language(JenkinsRule.WebClient wc) throws Exception {
+        return language(wc, "");
+    }
+
+    private static String language(JenkinsRule.WebClient wc, String path) throws Exception {
+        return wc.goTo(path, "text/html").getWebResponse().getResponseHeaderValue("X-Jenkins-Language");
+    }
+
+    @TestExtension("testCustomResolver")
+    public static class HeaderResolver extends LocaleResolver {
+
+        static final String HEADER = "X-Test-Locale";
+
+        @NonNull
+        @Override
+        public String getName() {
+            return "header";
+        }
+
+        @Override
+        public boolean isEnabled(@NonNull PluginImpl.Settings settings) {
+            return true;
+        }
+
+        @Override
+        public Locale resolve(@NonNull HttpServletRequest request, @NonNull PluginImpl.Settings settings) {
+            return LocaleRegistry.getAllowed(request.getHeader(HEADER));
+        }
+    }
+}
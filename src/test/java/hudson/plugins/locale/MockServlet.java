@@ -0,0 +1,86 @@
+package hudson.plugins.locale;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Minimal servlet request and response stand-ins for benchmarks, which cannot afford a real HTTP round trip.
+ */
+final class MockServlet {
+
+    private MockServlet() {}
+
+    /**
+     * Creates a {@code GET} request.
+     *
+     * @param uri the request URI, without context path
+     * @param acceptLanguage the {@code Accept-Language} header, may be {@code null}
+     * @return the request
+     */
+    static HttpServletRequest request(String uri, String acceptLanguage) {
+        Map<String, Object> attributes = new HashMap<>();
+        List<Locale> locales = acceptLanguage == null
+                ? List.of(Locale.getDefault())
+                : Locale.LanguageRange.parse(acceptLanguage).stream()
+                        .map(range -> Locale.forLanguageTag(range.getRange()))
+                        .toList();
+        InvocationHandler handler = (proxy, method, args) -> switch (method.getName()) {
+            case "getRequestURI" -> uri;
+            case "getContextPath" -> "";
+            case "getMethod" -> "GET";
+            case "getDispatcherType" -> DispatcherType.REQUEST;
+            case "getHeader" -> "Accept-Language".equalsIgnoreCase((String) args[0]) ? acceptLanguage : null;
+            case "getLocale" -> locales.get(0);
+            case "getLocales" -> Collections.enumeration(locales);
+            case "getAttribute" -> attributes.get((String) args[0]);
+            case "setAttribute" -> attributes.put((String) args[0], args[1]);
+            case "removeAttribute" -> attributes.remove((String) args[0]);
+            default -> defaultValue(proxy, method.getName(), method.getReturnType(), args);
+        };
+        return (HttpServletRequest) Proxy.newProxyInstance(
+                MockServlet.class.getClassLoader(), new Class<?>[] {HttpServletRequest.class}, handler);
+    }
+
+    /**
+     * Creates a response discarding everything written to it.
+     *
+     * @return the response
+     */
+    static HttpServletResponse response() {
+        InvocationHandler handler =
+                (proxy, method, args) -> defaultValue(proxy, method.getName(), method.getReturnType(), args);
+        return (HttpServletResponse) Proxy.newProxyInstance(
+                MockServlet.class.getClassLoader(), new Class<?>[] {HttpServletResponse.class}, handler);
+    }
+
+    private static Object defaultValue(Object proxy, String name, Class<?> type, Object[] args) {
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "MockServlet@" + Integer.toHexString(System.identityHashCode(proxy));
+            default:
+                break;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
@@ -2,12 +2,17 @@ package hudson.plugins.locale;
 
 import static hudson.plugins.locale.PluginImpl.ALLOWED_LOCALES;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import hudson.util.ListBoxModel;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -16,6 +21,7 @@ import org.jvnet.hudson.test.Issue;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.WithoutJenkins;
 import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+import org.jvnet.localizer.LocaleProvider;
 
 @WithJenkins
 class PluginImplTest {
@@ -62,6 +68,22 @@ class PluginImplTest {
         }
     }
 
+    @Test
+    void testDoFillSystemLocaleItemsReturnsFreshModel() {
+        PluginImpl plugin = PluginImpl.get();
+        ListBoxModel first = plugin.doFillSystemLocaleItems();
+        first.get(1).selected = true;
+
+        ListBoxModel second = plugin.doFillSystemLocaleItems();
+        assertNotSame(first, second);
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).name, second.get(i).name);
+            assertEquals(first.get(i).value, second.get(i).value);
+        }
+        assertFalse(second.get(1).selected, "Cached options must not leak state between calls");
+    }
+
     @Test
     void testSetSystemLocale() {
         PluginImpl plugin = PluginImpl.get();
@@ -100,6 +122,58 @@ class PluginImplTest {
         assertEquals(allowUserPreferences, plugin.isAllowUserPreferences());
     }
 
+    @Test
+    void testSettingsSnapshot() {
+        PluginImpl plugin = PluginImpl.get();
+        PluginImpl.Settings before = plugin.getSettings();
+
+        plugin.setSystemLocale("de");
+        plugin.setIgnoreAcceptLanguage(true);
+        plugin.setAllowUserPreferences(true);
+
+        PluginImpl.Settings after = plugin.getSettings();
+        assertEquals("de", after.systemLocale());
+        assertEquals(Locale.GERMAN, after.defaultLocale());
+        assertTrue(after.ignoreAcceptLanguage());
+        assertTrue(after.allowUserPreferences());
+        assertNotSame(before, after, "Changes should publish a new snapshot");
+
+        plugin.setSystemLocale(PluginImpl.USE_BROWSER_LOCALE);
+        assertEquals(PluginImpl.USE_BROWSER_LOCALE, plugin.getSettings().systemLocale());
+        assertEquals("de", after.systemLocale(), "Published snapshots should never change");
+    }
+
+    @Test
+    void testKeepJvmDefaultLocale() {
+        PluginImpl plugin = PluginImpl.get();
+        plugin.setSystemLocale(PluginImpl.USE_BROWSER_LOCALE);
+        Locale original = Locale.getDefault();
+        Locale other = Locale.JAPANESE.equals(original) ? Locale.GERMAN : Locale.JAPANESE;
+
+        plugin.setKeepJvmDefaultLocale(true);
+        plugin.setSystemLocale(other.toString());
+        assertEquals(original, Locale.getDefault(), "The JVM default locale should not change");
+        assertEquals(other, plugin.getSettings().defaultLocale());
+        assertEquals(other, LocaleProvider.getLocale(), "Outside of requests, the default language should apply");
+
+        plugin.setKeepJvmDefaultLocale(false);
+        assertEquals(other, Locale.getDefault());
+
+        plugin.setSystemLocale(PluginImpl.USE_BROWSER_LOCALE);
+        assertEquals(original, Locale.getDefault());
+    }
+
+    @Test
+    void testStartupTimings() {
+        Map<String, Long> startup = LocaleMetrics.get().getStartupNanos();
+        assertEquals(List.of("parse", "apply", "provider", "filter"), List.copyOf(startup.keySet()));
+        startup.values().forEach(nanos -> assertTrue(nanos >= 0));
+        assertTrue(LocaleMetrics.get().toJSONObject().getJSONObject("startupMillis").has("parse"));
+
+        PluginImpl.get().load();
+        assertEquals(startup, LocaleMetrics.get().getStartupNanos(), "Reloading should keep the startup timings");
+    }
+
     @Test
     @WithoutJenkins
     @Issue("https://github.com/jenkinsci/locale-plugin/pull/309#issuecomment-2912228288")
@@ -111,4 +185,27 @@ class PluginImplTest {
         assertEquals(new Locale("Locale.ENGLISH"), PluginImpl.parse("Locale.ENGLISH"));
         assertThrows(IllegalArgumentException.class, () -> PluginImpl.parse("string_with_more_than_3_underscores"));
     }
+
+    @Test
+    @WithoutJenkins
+    void parseLocaleStringLikeSplit() {
+        assertEquals(new Locale("en"), PluginImpl.parse(" en_ "));
+        assertEquals(new Locale("", "US"), PluginImpl.parse("_US"));
+        assertEquals(new Locale("en", "", "POSIX"), PluginImpl.parse("en__POSIX"));
+        assertEquals(new Locale("en", "US", "POSIX"), PluginImpl.parse("en_US_POSIX__"));
+        assertThrows(IllegalArgumentException.class, () -> PluginImpl.parse("_"));
+    }
+
+    @Test
+    @WithoutJenkins
+    void parseReturnsCanonicalLocales() {
+        for (String code : ALLOWED_LOCALES) {
+            assertSame(PluginImpl.parse(code), PluginImpl.parse(code));
+            assertSame(PluginImpl.parse(code), LocaleRegistry.getAllowed(code));
+        }
+        assertSame(PluginImpl.parse("en_US"), PluginImpl.parse("en_US"));
+        assertTrue(LocaleRegistry.isAllowed("pt_BR"));
+        assertFalse(LocaleRegistry.isAllowed("pt_XX"));
+        assertFalse(LocaleRegistry.isAllowed(null));
+    }
 }
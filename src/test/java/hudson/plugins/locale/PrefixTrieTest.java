@@ -0,0 +1,31 @@
+package hudson.plugins.locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class PrefixTrieTest {
+
+    @Test
+    void testMatch() {
+        PrefixTrie<String> trie = PrefixTrie.compile(Map.of("/job/", "job", "/job/a/", "a", "/static/", "static"));
+        assertEquals("job", trie.longestMatch("/job/b/", 0));
+        assertEquals("a", trie.longestMatch("/job/a/b", 0));
+        assertEquals("job", trie.firstMatch("/job/a/b", 0));
+        assertEquals("static", trie.firstMatch("/jenkins/static/abc/style.css", 8));
+        assertNull(trie.longestMatch("/job", 0));
+        assertNull(trie.longestMatch("/view/", 0));
+        assertNull(trie.longestMatch("", 0));
+    }
+
+    @Test
+    void testEmpty() {
+        PrefixTrie<String> trie = PrefixTrie.compile(Map.of("", "root"));
+        assertTrue(trie.isEmpty());
+        assertNull(trie.firstMatch("/", 0));
+        assertTrue(PrefixTrie.compile(Map.of()).isEmpty());
+    }
+}
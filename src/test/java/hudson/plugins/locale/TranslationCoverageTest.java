@@ -0,0 +1,62 @@
+package hudson.plugins.locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.Set;
+import net.sf.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.WithoutJenkins;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class TranslationCoverageTest {
+
+    @Test
+    void testIncrementalUpdate(JenkinsRule j) throws Exception {
+        TranslationCoverage coverage = TranslationCoverage.update();
+        assertTrue(new File(j.jenkins.getRootDir(), "locale-coverage.xml").isFile());
+        double japanese = coverage.getCoverage("ja");
+        assertTrue(japanese > 0 && japanese <= 1, "Jenkins core is translated to Japanese");
+
+        TranslationCoverage again = TranslationCoverage.update();
+        assertEquals(0, again.getScannedCount(), "Nothing changed, so nothing should be scanned");
+        assertEquals(japanese, again.getCoverage("ja"));
+        assertSame(again, TranslationCoverage.get());
+
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            String path = "descriptorByName/" + PluginImpl.class.getName() + "/coverage";
+            JSONObject json = JSONObject.fromObject(
+                    wc.goTo(path, "application/json").getWebResponse().getContentAsString());
+            assertTrue(json.getJSONObject("locales").getDouble("ja") > 0);
+        }
+    }
+
+    @Test
+    @WithoutJenkins
+    void testLocaleSuffix() {
+        assertEquals("pt_BR", TranslationCoverage.localeSuffix("hudson/Messages_pt_BR"));
+        assertEquals("ja", TranslationCoverage.localeSuffix("hudson/model/View/index_ja"));
+        assertEquals("pt", TranslationCoverage.localeSuffix("hudson/Messages_pt"));
+        assertNull(TranslationCoverage.localeSuffix("hudson/Messages"));
+        assertNull(TranslationCoverage.localeSuffix("hudson/model/some_View/config"));
+        assertNull(TranslationCoverage.localeSuffix("lib/form/help_URL"));
+    }
+
+    @Test
+    @WithoutJenkins
+    void testIsLocalizable() {
+        Set<String> views = Set.of("hudson/model/View/index");
+        assertTrue(TranslationCoverage.isLocalizable("hudson/Messages", views));
+        assertTrue(TranslationCoverage.isLocalizable("Messages", views));
+        assertTrue(TranslationCoverage.isLocalizable("hudson/model/View/index", views));
+        assertFalse(TranslationCoverage.isLocalizable("hudson/model/View/sidepanel", views));
+        assertFalse(TranslationCoverage.isLocalizable("META-INF/maven/org.example/demo/pom", views));
+        assertFalse(TranslationCoverage.isLocalizable("hudson/OtherMessages", views));
+    }
+}
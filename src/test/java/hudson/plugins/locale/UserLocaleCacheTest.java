@@ -0,0 +1,90 @@
+package hudson.plugins.locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.model.User;
+import hudson.plugins.locale.user.UserLocaleProperty;
+import java.util.Locale;
+import java.util.Map;
+import jenkins.model.Jenkins;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class UserLocaleCacheTest {
+
+    private JenkinsRule j;
+
+    @BeforeEach
+    void setUp(JenkinsRule rule) {
+        j = rule;
+        j.jenkins.setSecurityRealm(j.createDummySecurityRealm());
+        MockAuthorizationStrategy authorizationStrategy = new MockAuthorizationStrategy();
+        authorizationStrategy.grant(Jenkins.READ).onRoot().toEveryone();
+        j.jenkins.setAuthorizationStrategy(authorizationStrategy);
+        PluginImpl.get().setAllowUserPreferences(true);
+    }
+
+    @Test
+    void testRepeatedRequestsHitCache() throws Exception {
+        User userBob = User.get("bob", true, Map.of());
+        userBob.getProperty(UserLocaleProperty.class).setLocaleCode("ja");
+
+        UserLocaleCache cache = UserLocaleCache.get();
+        long misses = cache.getMissCount();
+        long hits = cache.getHitCount();
+        try (JenkinsRule.WebClient wc = j.createWebClient().login("bob")) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals("ja", language(wc));
+            }
+        }
+        assertTrue(cache.getHitCount() > hits, "Repeated requests should be served from the cache");
+        assertTrue(cache.getMissCount() > misses, "The first request should load the user");
+    }
+
+    @Test
+    void testChangedPropertyInvalidatesCache() throws Exception {
+        User userBob = User.get("bob", true, Map.of());
+        UserLocaleProperty property = userBob.getProperty(UserLocaleProperty.class);
+        property.setLocaleCode("ja");
+
+        try (JenkinsRule.WebClient wc = j.createWebClient().login("bob")) {
+            assertEquals("ja", language(wc));
+
+            property.setLocaleCode("fr");
+            assertEquals("fr", language(wc));
+        }
+    }
+
+    @Test
+    void testSavedUserInvalidatesCache() throws Exception {
+        User userBob = User.get("bob", true, Map.of());
+        UserLocaleCache cache = UserLocaleCache.get();
+        assertEquals(Locale.JAPANESE, cache.get("bob", () -> Locale.JAPANESE));
+        assertEquals(Locale.JAPANESE, cache.get("bob", () -> Locale.FRENCH));
+
+        userBob.save();
+        assertEquals(Locale.FRENCH, cache.get("bob", () -> Locale.FRENCH));
+
+        userBob.delete();
+        assertNull(cache.get("bob", () -> null));
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        UserLocaleCache cache = new UserLocaleCache(2);
+        cache.get("alice", () -> Locale.JAPANESE);
+        cache.get("bob", () -> Locale.FRENCH);
+        cache.get("carol", () -> Locale.GERMAN);
+        assertEquals(2, cache.size());
+    }
+
+    private static String language(JenkinsRule.WebClient wc) throws Exception {
+        return wc.goTo("", "text/html").getWebResponse().getResponseHeaderValue("X-Jenkins-Language");
+    }
+}
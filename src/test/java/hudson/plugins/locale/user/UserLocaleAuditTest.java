@@ -0,0 +1,179 @@
+package hudson.plugins.locale.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.cli.CLICommandInvoker;
+import hudson.model.User;
+import hudson.plugins.locale.PluginImpl;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+import org.htmlunit.HttpMethod;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebResponse;
+import org.htmlunit.html.HtmlForm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class UserLocaleAuditTest {
+
+    private JenkinsRule j;
+
+    @BeforeEach
+    void setUp(JenkinsRule rule) {
+        j = rule;
+        j.jenkins.setSecurityRealm(j.createDummySecurityRealm());
+        j.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy()
+                .grant(Jenkins.ADMINISTER)
+                .everywhere()
+                .to("admin")
+                .grant(Jenkins.READ)
+                .everywhere()
+                .to("reader"));
+        String[] codes = {"ja", "ja", "ja", "fr", "a_b_c_d", PluginImpl.USE_BROWSER_LOCALE, null};
+        for (int i = 0; i < codes.length; i++) {
+            User.getById("user" + i, true).getProperty(UserLocaleProperty.class).setLocaleCode(codes[i]);
+        }
+    }
+
+    @Test
+    void testAudit() throws Exception {
+        UserLocaleAudit.Result result = new UserLocaleAudit(Pattern.compile("user\\d+"), null, null).run();
+        assertTrue(result.users() >= 7);
+        assertEquals(7, result.matched());
+        assertEquals(0, result.changed());
+        assertEquals(Map.of("ja", 3L, "fr", 1L, PluginImpl.USE_BROWSER_LOCALE, 2L), result.locales());
+        assertEquals(Map.of("a_b_c_d", 1L), result.invalid());
+
+        assertThrows(IllegalArgumentException.class, () -> new UserLocaleAudit(null, null, "xx"));
+    }
+
+    @Test
+    void testAssign() throws Exception {
+        UserLocaleAudit.Result result = new UserLocaleAudit(Pattern.compile("user\\d+"), "ja", "de").run();
+        assertEquals(3, result.matched());
+        assertEquals(3, result.changed());
+        assertEquals(Map.of("ja", 3L), result.locales());
+        assertEquals("de", User.getById("user0", false).getProperty(UserLocaleProperty.class).getLocaleCode());
+        assertFalse(UserLocaleSaver.get().isPending(User.getById("user0", false)));
+        assertEquals("fr", User.getById("user3", false).getProperty(UserLocaleProperty.class).getLocaleCode());
+
+        result = new UserLocaleAudit(null, "a_b_c_d", PluginImpl.USE_BROWSER_LOCALE).run();
+        assertEquals(1, result.changed());
+        UserLocaleProperty property = User.getById("user4", false).getProperty(UserLocaleProperty.class);
+        assertEquals(PluginImpl.USE_BROWSER_LOCALE, property.getLocaleCode());
+        assertNull(property.getLocale());
+    }
+
+    @Test
+    void testCommand() {
+        CLICommandInvoker.Result result = new CLICommandInvoker(j, new UserLocaleCommand())
+                .asUser("admin")
+                .invokeWithArgs("--users", "user\\d+", "--json");
+        assertEquals(0, result.returnCode(), result.stderr());
+        JSONObject json = JSONObject.fromObject(result.stdout());
+        assertEquals(3, json.getJSONObject("locales").getInt("ja"));
+        assertEquals(1, json.getJSONObject("invalid").getInt("a_b_c_d"));
+
+        result = new CLICommandInvoker(j, new UserLocaleCommand())
+                .asUser("admin")
+                .invokeWithArgs("--users", "user[0-3]", "--clear");
+        assertEquals(0, result.returnCode(), result.stderr());
+        assertTrue(result.stdout().contains("4 of "), result.stdout());
+        assertEquals(
+                PluginImpl.USE_BROWSER_LOCALE,
+                User.getById("user3", false).getProperty(UserLocaleProperty.class).getLocaleCode());
+
+        result = new CLICommandInvoker(j, new UserLocaleCommand())
+                .asUser("admin")
+                .invokeWithArgs("--assign", "xx");
+        assertEquals(3, result.returnCode());
+
+        result = new CLICommandInvoker(j, new UserLocaleCommand()).asUser("reader").invoke();
+        assertEquals(6, result.returnCode());
+    }
+
+    @Test
+    void testEndpoints() throws Exception {
+        try (JenkinsRule.WebClient wc = j.createWebClient().login("admin")) {
+            JSONObject audit = JSONObject.fromObject(wc.goTo(
+                            "descriptorByName/" + UserLocaleProperty.class.getName() + "/audit?users=user%5Cd%2B",
+                            "application/json")
+                    .getWebResponse()
+                    .getContentAsString());
+            assertEquals(7, audit.getInt("matched"));
+            assertEquals(1, audit.getJSONObject("locales").getInt("fr"));
+
+            WebResponse assign = post(wc, "assign?from=fr&localeCode=de");
+            assertEquals(200, assign.getStatusCode());
+            assertEquals("de", JSONObject.fromObject(assign.getContentAsString()).getString("assign"));
+            UserLocaleAudit.Result result = UserLocaleManagement.get().getTask().await(1, TimeUnit.MINUTES);
+            assertEquals(1, result.changed());
+            assertEquals("de", User.getById("user3", false).getProperty(UserLocaleProperty.class).getLocaleCode());
+
+            JSONObject assignment = JSONObject.fromObject(wc.goTo(
+                            "descriptorByName/" + UserLocaleProperty.class.getName() + "/assignment",
+                            "application/json")
+                    .getWebResponse()
+                    .getContentAsString());
+            assertFalse(assignment.getBoolean("running"));
+            assertEquals(result.users(), assignment.getInt("progress"));
+            assertEquals(1, assignment.getJSONObject("result").getInt("changed"));
+
+            wc.setThrowExceptionOnFailingStatusCode(false);
+            assertEquals(400, post(wc, "assign?localeCode=xx").getStatusCode());
+            assertEquals(400, post(wc, "assign?users=%5B&localeCode=de").getStatusCode());
+        }
+        try (JenkinsRule.WebClient wc = j.createWebClient().login("reader")) {
+            wc.setThrowExceptionOnFailingStatusCode(false);
+            assertEquals(403, post(wc, "assign?localeCode=de").getStatusCode());
+        }
+    }
+
+    @Test
+    void testManagementPage() throws Exception {
+        try (JenkinsRule.WebClient wc = j.createWebClient().login("admin")) {
+            HtmlForm form = wc.goTo("manage/userLocales").getFormByName("assign");
+            form.getInputByName("users").setValue("user[0-2]");
+            form.getInputByName("localeCode").setValue("fr");
+            j.submit(form);
+            UserLocaleAudit.Result result = UserLocaleManagement.get().getTask().await(1, TimeUnit.MINUTES);
+            assertEquals(3, result.changed());
+            assertEquals("fr", User.getById("user2", false).getProperty(UserLocaleProperty.class).getLocaleCode());
+
+            form = wc.goTo("manage/userLocales").getFormByName("audit");
+            form.getInputByName("from").setValue("fr");
+            j.submit(form);
+            result = UserLocaleManagement.get().getTask().await(1, TimeUnit.MINUTES);
+            assertEquals(4, result.matched());
+            assertEquals(0, result.changed());
+            assertTrue(wc.goTo("manage/userLocales").asNormalizedText().contains("4 of "));
+        }
+        try (JenkinsRule.WebClient wc = j.createWebClient().login("reader")) {
+            wc.setThrowExceptionOnFailingStatusCode(false);
+            assertEquals(403, wc.goTo("manage/userLocales").getWebResponse().getStatusCode());
+            URL url = new URL(wc.getContextPath() + "manage/userLocales/assign?localeCode=de");
+            assertEquals(
+                    403,
+                    wc.getPage(wc.addCrumb(new WebRequest(url, HttpMethod.POST)))
+                            .getWebResponse()
+                            .getStatusCode());
+        }
+    }
+
+    private static WebResponse post(JenkinsRule.WebClient wc, String path) throws Exception {
+        URL url = new URL(wc.getContextPath() + "descriptorByName/" + UserLocaleProperty.class.getName() + "/" + path);
+        return wc.getPage(wc.addCrumb(new WebRequest(url, HttpMethod.POST))).getWebResponse();
+    }
+}
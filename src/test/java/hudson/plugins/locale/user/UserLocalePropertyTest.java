@@ -2,15 +2,29 @@ package hudson.plugins.locale.user;
 
 import static hudson.plugins.locale.PluginImpl.ALLOWED_LOCALES;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import hudson.model.Item;
 import hudson.model.User;
 import hudson.plugins.locale.PluginImpl;
 import hudson.util.ListBoxModel;
+import hudson.util.XStream2;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
 import jenkins.model.Jenkins;
+import org.htmlunit.HttpMethod;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.jvnet.hudson.test.JenkinsRule;
@@ -22,6 +36,8 @@ import org.jvnet.localizer.LocaleProvider;
 @WithJenkins
 class UserLocalePropertyTest {
 
+    private static final Logger LOGGER = Logger.getLogger(UserLocalePropertyTest.class.getName());
+
     private JenkinsRule j;
 
     @BeforeEach
@@ -166,12 +182,159 @@ class UserLocalePropertyTest {
         assertEquals("de", userLocaleProperty.getLocaleCode());
     }
 
+    @Test
+    void testPersistsOnlyLocaleCode() {
+        XStream2 xstream = new XStream2();
+        String xml = xstream.toXML(new UserLocaleProperty("de"));
+        assertFalse(xml.contains("<locale>"), xml);
+
+        UserLocaleProperty property = (UserLocaleProperty) xstream.fromXML(xml);
+        assertEquals("de", property.getLocaleCode());
+        assertSame(PluginImpl.parse("de"), property.getLocale());
+    }
+
+    @Test
+    void testReadsLegacyFormat() {
+        XStream2 xstream = new XStream2();
+        UserLocaleProperty property = (UserLocaleProperty) xstream.fromXML(legacyXml("pt_BR"));
+        assertEquals("pt_BR", property.getLocaleCode());
+        assertFalse(property.isCaptured());
+        assertSame(PluginImpl.parse("pt_BR"), property.getLocale());
+
+        // still applied once saved without the locale
+        property = (UserLocaleProperty) xstream.fromXML(xstream.toXML(property));
+        assertSame(PluginImpl.parse("pt_BR"), property.getLocale());
+    }
+
+    @Test
+    void testCapturedLegacyCodeIsNotApplied() {
+        XStream2 xstream = new XStream2();
+        UserLocaleProperty property = (UserLocaleProperty) xstream.fromXML(
+                "<hudson.plugins.locale.user.UserLocaleProperty><localeCode>en_US</localeCode>"
+                        + "</hudson.plugins.locale.user.UserLocaleProperty>");
+        assertEquals("en_US", property.getLocaleCode());
+        assertTrue(property.isCaptured());
+        assertNull(property.getLocale());
+
+        // saving again does not turn it into a choice
+        property = (UserLocaleProperty) xstream.fromXML(xstream.toXML(property));
+        assertTrue(property.isCaptured());
+        assertNull(property.getLocale());
+
+        property.setLocaleCode("en_US");
+        property = (UserLocaleProperty) xstream.fromXML(xstream.toXML(property));
+        assertFalse(property.isCaptured());
+        assertSame(PluginImpl.parse("en_US"), property.getLocale());
+    }
+
+    @Test
+    void testUseBrowserLocaleHasNoLocale() {
+        assertNull(new UserLocaleProperty(PluginImpl.USE_BROWSER_LOCALE).getLocale());
+    }
+
+    @Test
+    void testSwitchLocale() throws Exception {
+        j.jenkins.setSecurityRealm(j.createDummySecurityRealm());
+        PluginImpl.get().setAllowUserPreferences(true);
+        User userBob = User.getById("bob", true);
+        userBob.getProperty(UserLocaleProperty.class).setLocaleCode("ja");
+
+        try (JenkinsRule.WebClient wc = j.createWebClient().login("bob")) {
+            assertEquals(200, switchLocale(wc, "fr").getStatusCode());
+            assertEquals("fr", userBob.getProperty(UserLocaleProperty.class).getLocaleCode());
+            assertEquals("fr", wc.goTo("").getWebResponse().getResponseHeaderValue("X-Jenkins-Language"));
+
+            UserLocaleSaver.get().flush();
+            assertFalse(UserLocaleSaver.get().isPending(userBob));
+
+            wc.setThrowExceptionOnFailingStatusCode(false);
+            assertEquals(400, switchLocale(wc, "xx").getStatusCode());
+            assertEquals("fr", userBob.getProperty(UserLocaleProperty.class).getLocaleCode());
+        }
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            wc.setThrowExceptionOnFailingStatusCode(false);
+            assertEquals(403, switchLocale(wc, "de").getStatusCode());
+        }
+    }
+
+    private static WebResponse switchLocale(JenkinsRule.WebClient wc, String localeCode) throws Exception {
+        URL url = new URL(wc.getContextPath() + "descriptorByName/" + UserLocaleProperty.class.getName()
+                + "/switchLocale?localeCode=" + localeCode);
+        return wc.getPage(wc.addCrumb(new WebRequest(url, HttpMethod.POST))).getWebResponse();
+    }
+
+    /**
+     * Older versions deserialized their own {@link Locale} for each user, properties now share the canonical one
+     * whichever format they are read from. Sizes are estimated from the fields, so the result does not depend on
+     * the garbage collector.
+     */
+    @Test
+    void testRetainedHeapPer10kUsers() {
+        int users = 10_000;
+        XStream2 xstream = new XStream2();
+        String legacy = legacyXml("zh_TW");
+        String current = xstream.toXML(new UserLocaleProperty("zh_TW"));
+        Locale canonical = PluginImpl.parse("zh_TW");
+
+        Set<Locale> before = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < users; i++) {
+            before.add((Locale) xstream.fromXML("<locale>zh_TW</locale>"));
+        }
+        assertEquals(users, before.size());
+
+        Set<Locale> after = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < users; i++) {
+            UserLocaleProperty fromLegacy = (UserLocaleProperty) xstream.fromXML(legacy);
+            UserLocaleProperty fromCurrent = (UserLocaleProperty) xstream.fromXML(current);
+            assertSame(canonical, fromCurrent.getLocale());
+            after.add(fromLegacy.getLocale());
+            after.add(fromCurrent.getLocale());
+        }
+        assertEquals(Set.of(canonical), after);
+
+        long perUser = (long) (before.size() - after.size()) * shallowSize(Locale.class) / users;
+        LOGGER.info(() -> String.format("Retained heap saved per user: about %d bytes of Locale", perUser));
+        assertTrue(perUser >= 16, "Each user should no longer retain a Locale of its own");
+    }
+
+    /**
+     * Estimates the size of an instance of a class from its fields, assuming compressed references.
+     */
+    private static long shallowSize(Class<?> type) {
+        long size = 12;
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                Class<?> fieldType = field.getType();
+                if (fieldType == long.class || fieldType == double.class) {
+                    size += 8;
+                } else if (fieldType == short.class || fieldType == char.class) {
+                    size += 2;
+                } else if (fieldType == byte.class || fieldType == boolean.class) {
+                    size += 1;
+                } else {
+                    size += 4;
+                }
+            }
+        }
+        return (size + 7) / 8 * 8;
+    }
+
+    private static String legacyXml(String localeCode) {
+        return "<hudson.plugins.locale.user.UserLocaleProperty>"
+                + "<localeCode>" + localeCode + "</localeCode>"
+                + "<locale>" + localeCode + "</locale>"
+                + "</hudson.plugins.locale.user.UserLocaleProperty>";
+    }
+
     @Test
     @LocalData
     void testUnsetUserLocaleProperty() {
         User user = User.get("test", false, Map.of());
         UserLocaleProperty userLocaleProperty = user.getProperty(UserLocaleProperty.class);
-        assertEquals(LocaleProvider.getLocale().toString(), userLocaleProperty.getLocaleCode());
+        assertEquals(PluginImpl.USE_BROWSER_LOCALE, userLocaleProperty.getLocaleCode());
     }
 
     @Test
@@ -179,7 +342,7 @@ class UserLocalePropertyTest {
     void testEmptyUserLocaleProperty() {
         User user = User.get("test", false, Map.of());
         UserLocaleProperty userLocaleProperty = user.getProperty(UserLocaleProperty.class);
-        assertEquals(LocaleProvider.getLocale().toString(), userLocaleProperty.getLocaleCode());
+        assertEquals(PluginImpl.USE_BROWSER_LOCALE, userLocaleProperty.getLocaleCode());
     }
 
     @Test